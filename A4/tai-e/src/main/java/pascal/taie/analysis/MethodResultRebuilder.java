@@ -0,0 +1,107 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis;
+
+import pascal.taie.World;
+import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisPlanner;
+import pascal.taie.config.ConfigManager;
+import pascal.taie.config.Configs;
+import pascal.taie.config.Options;
+import pascal.taie.config.PlanConfig;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRCache;
+import pascal.taie.util.AnalysisException;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Rebuilds the results of method analyses on the IRs rebuilt by
+ * {@link IRCache}, by running the method analyses of the analysis plan
+ * again in the order of the plan, so that the results which depend on
+ * other results (e.g., CFGs on throw results) are rebuilt after them.
+ */
+public class MethodResultRebuilder implements BiConsumer<IR, Set<String>> {
+
+    private final List<MethodAnalysis> analyses;
+
+    public MethodResultRebuilder() {
+        analyses = makePlan().stream()
+                .map(MethodResultRebuilder::newMethodAnalysis)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Makes the analysis plan in the same way as {@link pascal.taie.Main}.
+     */
+    private static List<AnalysisConfig> makePlan() {
+        Options options = World.get().getOptions();
+        ConfigManager manager = new ConfigManager(
+                AnalysisConfig.parseConfigs(Configs.getAnalysisConfig()));
+        AnalysisPlanner planner = new AnalysisPlanner(manager);
+        boolean reachableScope = options.getScope().equals("reachable");
+        if (!options.getAnalyses().isEmpty()) {
+            List<PlanConfig> planConfigs = PlanConfig.readConfigs(options);
+            manager.overwriteOptions(planConfigs);
+            return planner.expandPlan(planConfigs, reachableScope);
+        } else if (options.getPlanFile() != null) {
+            List<PlanConfig> planConfigs = PlanConfig.readConfigs(options.getPlanFile());
+            manager.overwriteOptions(planConfigs);
+            return planner.makePlan(planConfigs, reachableScope);
+        } else {
+            return List.of();
+        }
+    }
+
+    /**
+     * @return the method analysis of given config, or null if the config
+     * is not for a method analysis.
+     */
+    @Nullable
+    private static MethodAnalysis newMethodAnalysis(AnalysisConfig config) {
+        try {
+            Class<?> c = Class.forName(config.getAnalysisClass());
+            if (!MethodAnalysis.class.isAssignableFrom(c)) {
+                return null;
+            }
+            return (MethodAnalysis) c.getConstructor(AnalysisConfig.class)
+                    .newInstance(config);
+        } catch (ReflectiveOperationException e) {
+            throw new AnalysisException("Failed to create analysis "
+                    + config.getAnalysisClass(), e);
+        }
+    }
+
+    @Override
+    public void accept(IR ir, Set<String> resultIds) {
+        analyses.stream()
+                .filter(analysis -> resultIds.contains(analysis.getId()))
+                .forEach(analysis -> ir.storeResult(
+                        analysis.getId(), analysis.analyze(ir)));
+    }
+}
@@ -28,8 +28,6 @@ import pascal.taie.analysis.graph.icfg.ICFG;
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 import pascal.taie.util.collection.SetQueue;
 
-import java.util.LinkedList;
-import java.util.Queue;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -46,7 +44,7 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private InterWorkList<Method, Node> workList;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
@@ -73,7 +71,8 @@ class InterSolver<Method, Node, Fact> {
 
     private void doSolve() {
         // TODO - finish me
-        Queue<Node> workList = new LinkedList<>(icfg.getNodes());
+        workList = new InterWorkList<>(icfg);
+        workList.addAll(icfg.getNodes());
         while (!workList.isEmpty()) {
             Node node = workList.poll();
             CPFact in = new CPFact();
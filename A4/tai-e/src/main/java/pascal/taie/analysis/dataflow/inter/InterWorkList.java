@@ -0,0 +1,229 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraphSCCs;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Work list of {@link InterSolver}, which contains each node at most once,
+ * and always polls the node with the highest priority.
+ * <p>
+ * Nodes are prioritized by the bottom-up order of the SCCs of the call
+ * graph that contain their methods, and then by the reverse post-order
+ * of the nodes in their methods. Thus, the nodes of callees are processed
+ * before those of their callers, so that callees stabilize before their
+ * return edges are consumed, and each method is processed in the order
+ * of its control flow.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ */
+class InterWorkList<Method, Node> {
+
+    /**
+     * All nodes of the ICFG in the order of their priorities.
+     */
+    private final List<Node> nodes;
+
+    /**
+     * Node -> index of the node in {@link #nodes}, which is also its
+     * priority (smaller value means higher priority).
+     */
+    private final Map<Node, Integer> indexes;
+
+    private final boolean[] inList;
+
+    /**
+     * Binary min-heap of priorities of the nodes in this list.
+     */
+    private final int[] heap;
+
+    private int size = 0;
+
+    InterWorkList(ICFG<Method, Node> icfg) {
+        nodes = computeOrder(icfg);
+        indexes = Maps.newMap(nodes.size());
+        for (Node node : nodes) {
+            indexes.put(node, indexes.size());
+        }
+        inList = new boolean[nodes.size()];
+        heap = new int[nodes.size()];
+    }
+
+    /**
+     * Adds a node to this list.
+     *
+     * @return true if the node is added, or false if it is already in
+     * this list or it is not a node of the ICFG.
+     */
+    boolean add(Node node) {
+        Integer p = indexes.get(node);
+        return p != null && add(p);
+    }
+
+    private boolean add(int p) {
+        if (inList[p]) {
+            return false;
+        }
+        inList[p] = true;
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= p) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = p;
+        return true;
+    }
+
+    void addAll(Collection<Node> toAdd) {
+        toAdd.forEach(this::add);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes and returns the node with the highest priority.
+     */
+    Node poll() {
+        int p = heap[0];
+        int last = heap[--size];
+        // sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        inList[p] = false;
+        return nodes.get(p);
+    }
+
+    /**
+     * @return all nodes of the ICFG in the order of their priorities.
+     */
+    private static <Method, Node> List<Node> computeOrder(ICFG<Method, Node> icfg) {
+        // group nodes by their containing methods
+        Map<Method, List<Node>> methodNodes = new LinkedHashMap<>();
+        for (Node node : icfg) {
+            methodNodes.computeIfAbsent(icfg.getContainingMethodOf(node),
+                    m -> new ArrayList<>()).add(node);
+        }
+        // sort methods in bottom-up order of call graph SCCs
+        CallGraph<Node, Method> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        CallGraphSCCs<Method> sccs = CallGraphSCCs.of(callGraph);
+        List<Method> methods = new ArrayList<>(methodNodes.keySet());
+        methods.sort(Comparator.comparingInt(m -> {
+            int i = sccs.getComponentIndex(m);
+            return i != -1 ? i : Integer.MAX_VALUE;
+        }));
+        List<Node> order = new ArrayList<>(icfg.getNumberOfNodes());
+        for (Method method : methods) {
+            List<Node> rpo = reversePostOrder(icfg, icfg.getEntryOf(method));
+            order.addAll(rpo);
+            if (rpo.size() < methodNodes.get(method).size()) {
+                // nodes unreachable from the entry
+                Set<Node> visited = new HashSet<>(rpo);
+                methodNodes.get(method)
+                        .stream()
+                        .filter(n -> !visited.contains(n))
+                        .forEach(order::add);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the nodes of a method in reverse post-order of the
+     * intra-procedural edges starting from the entry of the method.
+     */
+    private static <Node> List<Node> reversePostOrder(
+            ICFG<?, Node> icfg, Node entry) {
+        List<Node> postOrder = new ArrayList<>();
+        Set<Node> visited = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<ICFGEdge<Node>>> edges = new ArrayDeque<>();
+        visited.add(entry);
+        stack.push(entry);
+        edges.push(icfg.getOutEdgesOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<ICFGEdge<Node>> it = edges.peek();
+            Node next = null;
+            while (it.hasNext()) {
+                ICFGEdge<Node> edge = it.next();
+                if (!(edge instanceof CallEdge || edge instanceof ReturnEdge)
+                        && visited.add(edge.getTarget())) {
+                    next = edge.getTarget();
+                    break;
+                }
+            }
+            if (next != null) {
+                stack.push(next);
+                edges.push(icfg.getOutEdgesOf(next).iterator());
+            } else {
+                postOrder.add(stack.pop());
+                edges.pop();
+            }
+        }
+        List<Node> rpo = new ArrayList<>(postOrder.size());
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            rpo.add(postOrder.get(i));
+        }
+        return rpo;
+    }
+}
@@ -22,7 +22,18 @@
 
 package pascal.taie.analysis.graph.callgraph;
 
+import java.util.Collection;
+import java.util.List;
+
 interface CGBuilder<CallSite, Method> {
 
     CallGraph<CallSite, Method> build();
+
+    /**
+     * @return the phases of the last run of this builder, which are used
+     * for reporting call graph statistics.
+     */
+    default Collection<CallGraphStatistics.Phase> getPhases() {
+        return List.of();
+    }
 }
@@ -39,9 +39,15 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
 
     private ClassHierarchy hierarchy;
 
+    /**
+     * Time and call edges of each phase of the last run of this builder.
+     */
+    private final Map<String, CallGraphStatistics.Phase> phases = new LinkedHashMap<>();
+
     @Override
     public CallGraph<Invoke, JMethod> build() {
         hierarchy = World.get().getClassHierarchy();
+        phases.clear();
         return buildCallGraph(World.get().getMainMethod());
     }
 
@@ -50,36 +56,218 @@ class CHABuilder implements CGBuilder<Invoke, JMethod> {
         callGraph.addEntryMethod(entry);
         Queue<JMethod> workList = new LinkedList<>();
         workList.add(entry);
+        addReachableMethods(callGraph, workList);
+        return callGraph;
+    }
+
+    /**
+     * Adds the methods in the work list, and the methods transitively
+     * called by them, to the call graph. The call sites of the methods
+     * that are already in the call graph are not resolved again.
+     */
+    private void addReachableMethods(DefaultCallGraph callGraph,
+                                     Queue<JMethod> workList) {
         while (!workList.isEmpty()) {
             JMethod method = workList.poll();
-            if (callGraph.addReachableMethod(method)) {
-                method.getIR().forEach(stmt -> {
-                    if (stmt instanceof Invoke callSite) {
-                        //Get Call Kind
-                        CallKind callKind;
-                        if (callSite.isStatic()) {
-                            callKind = CallKind.STATIC;
-                        } else if (callSite.isSpecial()) {
-                            callKind = CallKind.SPECIAL;
-                        } else if (callSite.isInterface()) {
-                            callKind = CallKind.INTERFACE;
-                        } else {
-                            callKind = CallKind.VIRTUAL;
-                        }
-
-                        Set<JMethod> callTargets = resolve(callSite);
-                        callTargets.forEach(target -> {
-                            callGraph.addEdge(new Edge<>(callKind, callSite, target));
-                            workList.add(target);
-                        });
+            long start = System.nanoTime();
+            boolean isNew = callGraph.addReachableMethod(method);
+            getPhase("reachable-methods").record(System.nanoTime() - start, 0);
+            if (isNew) {
+                // call sites have been collected by addReachableMethod(),
+                // so that the IR is not traversed again
+                callGraph.callSitesIn(method).forEach(callSite -> {
+                    //Get Call Kind
+                    CallKind callKind;
+                    if (callSite.isStatic()) {
+                        callKind = CallKind.STATIC;
+                    } else if (callSite.isSpecial()) {
+                        callKind = CallKind.SPECIAL;
+                    } else if (callSite.isInterface()) {
+                        callKind = CallKind.INTERFACE;
+                    } else {
+                        callKind = CallKind.VIRTUAL;
                     }
+
+                    long resolveStart = System.nanoTime();
+                    Set<JMethod> callTargets = resolve(callSite);
+                    int edges = addEdges(callGraph, callKind, callSite,
+                            callTargets, workList);
+                    getPhase("resolve-" + callKind.name().toLowerCase())
+                            .record(System.nanoTime() - resolveStart, edges);
                 });
             }
+        }
+    }
+
+    @Override
+    public Collection<CallGraphStatistics.Phase> getPhases() {
+        return Collections.unmodifiableCollection(phases.values());
+    }
+
+    private CallGraphStatistics.Phase getPhase(String name) {
+        return phases.computeIfAbsent(name, CallGraphStatistics.Phase::new);
+    }
+
+    /**
+     * Adds call edges from given call site to the targets, and adds
+     * the targets to the work list.
+     *
+     * @return the number of new call edges.
+     */
+    private static int addEdges(DefaultCallGraph callGraph, CallKind callKind,
+                                Invoke callSite, Set<JMethod> callTargets,
+                                Queue<JMethod> workList) {
+        int edges = 0;
+        for (JMethod target : callTargets) {
+            if (callGraph.addEdge(new Edge<>(callKind, callSite, target))) {
+                ++edges;
+            }
+            workList.add(target);
+        }
+        return edges;
+    }
+
+    /**
+     * Incrementally updates a call graph previously built by CHA after
+     * some classes of the program have been added, removed or changed.
+     * The class hierarchy in {@link World} is expected to already reflect
+     * the new program. The call graph is updated in place.
+     * <p>
+     * The methods of the affected classes are dropped from the call graph,
+     * as their bodies may have changed. Then only the call sites whose
+     * targets may be affected are re-resolved, i.e., the call sites whose
+     * method references are declared in a supertype or a subtype of an
+     * affected class, and the call sites which previously dispatched to
+     * an affected class. The other call sites keep their call edges.
+     * Only the methods that become reachable are added and scanned,
+     * and the methods that become unreachable are removed.
+     *
+     * @param callGraph the call graph before the change
+     * @param added     the classes that are newly added
+     * @param removed   the classes that are removed
+     * @param changed   the classes whose bodies or supertypes are changed
+     * @return the updated call graph.
+     */
+    CallGraph<Invoke, JMethod> update(DefaultCallGraph callGraph,
+                                      Collection<JClass> added,
+                                      Collection<JClass> removed,
+                                      Collection<JClass> changed) {
+        hierarchy = World.get().getClassHierarchy();
+        phases.clear();
+        Set<JClass> affectedClasses = new HashSet<>();
+        affectedClasses.addAll(added);
+        affectedClasses.addAll(removed);
+        affectedClasses.addAll(changed);
+        Set<JClass> affectedTypes = getRelatedTypes(affectedClasses);
 
+        // drop the methods whose bodies may have changed; the ones that
+        // are still called are added back by the re-resolution below
+        callGraph.reachableMethods()
+                .filter(m -> affectedClasses.contains(m.getDeclaringClass()))
+                .toList()
+                .forEach(callGraph::removeReachableMethod);
+        Queue<JMethod> workList = new LinkedList<>();
+        callGraph.entryMethods().forEach(workList::add);
+        for (JMethod method : callGraph.reachableMethods().toList()) {
+            for (Invoke callSite : List.copyOf(callGraph.getCallSitesIn(method))) {
+                if (isAffected(callGraph, callSite, affectedClasses, affectedTypes)) {
+                    long start = System.nanoTime();
+                    CallKind callKind = CallGraphs.getCallKind(callSite);
+                    Set<JMethod> callTargets = resolve(callSite);
+                    callGraph.edgesOutOf(callSite)
+                            .filter(edge -> !callTargets.contains(edge.getCallee()))
+                            .toList()
+                            .forEach(callGraph::removeEdge);
+                    int edges = addEdges(callGraph, callKind, callSite,
+                            callTargets, workList);
+                    getPhase("re-resolve").record(System.nanoTime() - start, edges);
+                }
+            }
         }
+        addReachableMethods(callGraph, workList);
+        long start = System.nanoTime();
+        removeUnreachableMethods(callGraph);
+        getPhase("remove-unreachable").record(System.nanoTime() - start, 0);
+        CallGraphSCCs.invalidate(callGraph);
         return callGraph;
     }
 
+    /**
+     * Removes the methods that are no longer reachable from the entry
+     * methods of the call graph. Only the call edges are traversed.
+     */
+    private static void removeUnreachableMethods(DefaultCallGraph callGraph) {
+        Set<JMethod> reached = new HashSet<>();
+        Queue<JMethod> queue = new LinkedList<>();
+        callGraph.entryMethods().forEach(queue::add);
+        while (!queue.isEmpty()) {
+            JMethod method = queue.poll();
+            if (reached.add(method)) {
+                queue.addAll(callGraph.getCalleesOfM(method));
+            }
+        }
+        callGraph.reachableMethods()
+                .filter(m -> !reached.contains(m))
+                .toList()
+                .forEach(callGraph::removeReachableMethod);
+    }
+
+    /**
+     * @return true if the targets of the given call site may be
+     * affected by the changed classes, otherwise false.
+     */
+    private static boolean isAffected(CallGraph<Invoke, JMethod> callGraph,
+                                      Invoke callSite,
+                                      Set<JClass> affectedClasses,
+                                      Set<JClass> affectedTypes) {
+        if (affectedTypes.contains(callSite.getMethodRef().getDeclaringClass())) {
+            return true;
+        }
+        // the supertypes of the affected classes may have been changed,
+        // so that the call site previously dispatched to them
+        // but should not anymore
+        return callGraph.getCalleesOf(callSite)
+                .stream()
+                .anyMatch(callee -> affectedClasses.contains(callee.getDeclaringClass()));
+    }
+
+    /**
+     * @return the given classes together with all their supertypes
+     * and subtypes.
+     */
+    private Set<JClass> getRelatedTypes(Set<JClass> classes) {
+        Set<JClass> types = new HashSet<>();
+        // supertypes: a call site declared in a supertype may dispatch to
+        // the methods of the given classes
+        Queue<JClass> queue = new LinkedList<>(classes);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (types.add(c)) {
+                if (c.getSuperClass() != null) {
+                    queue.add(c.getSuperClass());
+                }
+                queue.addAll(c.getInterfaces());
+            }
+        }
+        // subtypes: a call site declared in a subtype may dispatch to
+        // the methods inherited from the given classes
+        Set<JClass> visited = new HashSet<>();
+        queue.addAll(classes);
+        while (!queue.isEmpty()) {
+            JClass c = queue.poll();
+            if (visited.add(c)) {
+                types.add(c);
+                if (c.isInterface()) {
+                    queue.addAll(hierarchy.getDirectSubinterfacesOf(c));
+                    queue.addAll(hierarchy.getDirectImplementorsOf(c));
+                } else {
+                    queue.addAll(hierarchy.getDirectSubclassesOf(c));
+                }
+            }
+        }
+        return types;
+    }
+
     /**
      * Resolves call targets (callees) of a call site via CHA.
      */
@@ -24,9 +24,11 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.analysis.MethodResultRebuilder;
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.IRPrinter;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.language.classes.ClassHierarchyImpl;
@@ -61,10 +63,20 @@ public class CallGraphBuilder extends ProgramAnalysis {
         } else {
             throw new ConfigException("Unknown call graph building algorithm: " + algorithm);
         }
+        Object irCacheSize = getOptions().get("ir-cache-size");
+        IRCache.setCapacity(irCacheSize != null ?
+                (Integer) irCacheSize : IRCache.UNBOUNDED);
+        if (IRCache.isBounded()) {
+            IRCache.setResultRebuilder(new MethodResultRebuilder());
+        }
         ClassHierarchyImpl.setCheckCHA(true);
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         ClassHierarchyImpl.setCheckCHA(false);
         takeAction(callGraph);
+        if (getOptions().getBooleanOrDefault("stats", false)) {
+            CallGraphStatistics.dump(callGraph, builder.getPhases(),
+                    getOptions().getString("stats-file"));
+        }
         return callGraph;
     }
 
@@ -0,0 +1,324 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import pascal.taie.World;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+
+/**
+ * Strongly connected components (SCCs) of a call graph and the condensed
+ * call graph, i.e., the DAG whose nodes are SCCs.
+ * <p>
+ * The SCCs are computed by an iterative version of Tarjan's algorithm,
+ * thus deep call chains do not overflow the stack. Each SCC is identified
+ * by an index, and the indexes are in bottom-up topological order:
+ * if a method in SCC {@code i} calls a method in a different SCC
+ * {@code j}, then {@code j < i}.
+ * <p>
+ * The SCCs of a call graph are computed once and cached in {@link World},
+ * use {@link #of(CallGraph)} to obtain them. The cache is dropped when the
+ * call graph is updated in place by {@link CHABuilder}.
+ *
+ * @param <Method> type of methods
+ */
+public class CallGraphSCCs<Method> {
+
+    /**
+     * Key of the cached SCCs in {@link World}.
+     */
+    public static final String ID = "cg-scc";
+
+    /**
+     * SCCs in bottom-up topological order.
+     */
+    private final List<List<Method>> components = new ArrayList<>();
+
+    /**
+     * Method -> index of the SCC that contains the method.
+     */
+    private final Map<Method, Integer> componentIndexes = Maps.newMap();
+
+    /**
+     * Whether each SCC is recursive, i.e., it contains more than one
+     * method or its only method calls itself.
+     */
+    private final BitSet recursive = new BitSet();
+
+    /**
+     * Successors and predecessors of each SCC in the condensed call graph.
+     */
+    private int[][] succs;
+
+    private int[][] preds;
+
+    private CallGraphSCCs(CallGraph<?, Method> callGraph) {
+        compute(callGraph);
+    }
+
+    /**
+     * @return the SCCs of the given call graph. The result is computed on
+     * the first request and then cached in {@link World}.
+     */
+    @SuppressWarnings("unchecked")
+    public static <Method> CallGraphSCCs<Method> of(CallGraph<?, Method> callGraph) {
+        Map<CallGraph<?, ?>, CallGraphSCCs<?>> cache = World.get().getResult(
+                ID, () -> Collections.synchronizedMap(new WeakHashMap<>()));
+        return (CallGraphSCCs<Method>) cache.computeIfAbsent(
+                callGraph, cg -> new CallGraphSCCs<>(callGraph));
+    }
+
+    /**
+     * Drops the cached SCCs of the given call graph. It should be called
+     * after the call graph is changed in place, so that {@link #of(CallGraph)}
+     * computes the SCCs of the changed call graph.
+     */
+    static void invalidate(CallGraph<?, ?> callGraph) {
+        Map<CallGraph<?, ?>, CallGraphSCCs<?>> cache = World.get().getResult(ID);
+        if (cache != null) {
+            cache.remove(callGraph);
+        }
+    }
+
+    private void compute(CallGraph<?, Method> callGraph) {
+        List<Method> methods = callGraph.reachableMethods().toList();
+        Map<Method, Integer> ids = Maps.newMap(methods.size());
+        for (Method m : methods) {
+            ids.put(m, ids.size());
+        }
+        int n = methods.size();
+        // successors of each method, computed once
+        int[][] methodSuccs = new int[n][];
+        for (int i = 0; i < n; ++i) {
+            methodSuccs[i] = callGraph.getSuccsOf(methods.get(i))
+                    .stream()
+                    .map(ids::get)
+                    .filter(Objects::nonNull)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        // iterative Tarjan's algorithm
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        int[] component = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] sccStack = new int[n];
+        int sccTop = 0;
+        // call stack of the DFS: node and position of next successor
+        int[] dfsNode = new int[n];
+        int[] dfsPos = new int[n];
+        int nextIndex = 0;
+        for (int root = 0; root < n; ++root) {
+            if (index[root] != -1) {
+                continue;
+            }
+            int dfsTop = 0;
+            dfsNode[0] = root;
+            dfsPos[0] = 0;
+            index[root] = lowLink[root] = nextIndex++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+            while (dfsTop >= 0) {
+                int v = dfsNode[dfsTop];
+                if (dfsPos[dfsTop] < methodSuccs[v].length) {
+                    int w = methodSuccs[v][dfsPos[dfsTop]++];
+                    if (index[w] == -1) {
+                        // descend into w
+                        index[w] = lowLink[w] = nextIndex++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        ++dfsTop;
+                        dfsNode[dfsTop] = w;
+                        dfsPos[dfsTop] = 0;
+                    } else if (onStack[w]) {
+                        lowLink[v] = Math.min(lowLink[v], index[w]);
+                    }
+                } else {
+                    // all successors of v have been visited
+                    if (lowLink[v] == index[v]) {
+                        int id = components.size();
+                        List<Method> scc = new ArrayList<>();
+                        int w;
+                        do {
+                            w = sccStack[--sccTop];
+                            onStack[w] = false;
+                            component[w] = id;
+                            scc.add(methods.get(w));
+                        } while (w != v);
+                        components.add(Collections.unmodifiableList(scc));
+                    }
+                    --dfsTop;
+                    if (dfsTop >= 0) {
+                        int u = dfsNode[dfsTop];
+                        lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < n; ++i) {
+            componentIndexes.put(methods.get(i), component[i]);
+        }
+        // build condensed call graph
+        int size = components.size();
+        List<BitSet> succSets = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            succSets.add(new BitSet());
+        }
+        int[] predCounts = new int[size];
+        for (int v = 0; v < n; ++v) {
+            int cv = component[v];
+            for (int w : methodSuccs[v]) {
+                int cw = component[w];
+                if (cv == cw) {
+                    recursive.set(cv);
+                } else if (!succSets.get(cv).get(cw)) {
+                    succSets.get(cv).set(cw);
+                    ++predCounts[cw];
+                }
+            }
+        }
+        succs = new int[size][];
+        preds = new int[size][];
+        for (int i = 0; i < size; ++i) {
+            succs[i] = succSets.get(i).stream().toArray();
+            preds[i] = new int[predCounts[i]];
+            if (components.get(i).size() > 1) {
+                recursive.set(i);
+            }
+        }
+        int[] predPos = new int[size];
+        for (int i = 0; i < size; ++i) {
+            for (int s : succs[i]) {
+                preds[s][predPos[s]++] = i;
+            }
+        }
+    }
+
+    /**
+     * @return the number of SCCs.
+     */
+    public int getNumberOfComponents() {
+        return components.size();
+    }
+
+    /**
+     * @return the methods in the {@code i}-th SCC.
+     */
+    public List<Method> getComponent(int i) {
+        return components.get(i);
+    }
+
+    /**
+     * @return index of the SCC that contains the given method,
+     * or -1 if the method is not in the call graph.
+     */
+    public int getComponentIndex(Method method) {
+        Integer i = componentIndexes.get(method);
+        return i != null ? i : -1;
+    }
+
+    /**
+     * @return true if the {@code i}-th SCC is recursive, i.e., it contains
+     * more than one method, or its only method calls itself.
+     */
+    public boolean isRecursive(int i) {
+        return recursive.get(i);
+    }
+
+    /**
+     * @return indexes of the SCCs called by the {@code i}-th SCC
+     * in the condensed call graph.
+     */
+    public int[] getSuccsOf(int i) {
+        return succs[i].clone();
+    }
+
+    /**
+     * @return indexes of the SCCs calling the {@code i}-th SCC
+     * in the condensed call graph.
+     */
+    public int[] getPredsOf(int i) {
+        return preds[i].clone();
+    }
+
+    /**
+     * @return the SCCs in bottom-up topological order,
+     * i.e., callees before callers.
+     */
+    public List<List<Method>> bottomUp() {
+        return Collections.unmodifiableList(components);
+    }
+
+    /**
+     * @return the SCCs in top-down topological order,
+     * i.e., callers before callees.
+     */
+    public List<List<Method>> topDown() {
+        List<List<Method>> result = new ArrayList<>(components);
+        Collections.reverse(result);
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Partitions the SCCs into levels for bottom-up scheduling: level 0
+     * contains the SCCs that call no other SCCs, and each SCC in level
+     * {@code k} only calls SCCs in levels below {@code k}. Thus, the SCCs
+     * in the same level are independent of each other and can be
+     * processed in parallel.
+     *
+     * @return indexes of SCCs in each level.
+     */
+    public List<int[]> bottomUpLevels() {
+        int size = components.size();
+        int[] level = new int[size];
+        int maxLevel = -1;
+        // callees have smaller indexes, so their levels are ready
+        for (int i = 0; i < size; ++i) {
+            int l = 0;
+            for (int s : succs[i]) {
+                l = Math.max(l, level[s] + 1);
+            }
+            level[i] = l;
+            maxLevel = Math.max(maxLevel, l);
+        }
+        List<List<Integer>> levels = new ArrayList<>();
+        for (int l = 0; l <= maxLevel; ++l) {
+            levels.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; ++i) {
+            levels.get(level[i]).add(i);
+        }
+        return levels.stream()
+                .map(l -> l.stream().mapToInt(Integer::intValue).toArray())
+                .toList();
+    }
+}
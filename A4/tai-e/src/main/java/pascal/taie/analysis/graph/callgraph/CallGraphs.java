@@ -33,6 +33,7 @@ import pascal.taie.ir.exp.InvokeSpecial;
 import pascal.taie.ir.exp.InvokeStatic;
 import pascal.taie.ir.exp.InvokeVirtual;
 import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JClass;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.util.IDProvider;
@@ -40,6 +41,7 @@ import pascal.taie.util.MapIDProvider;
 import pascal.taie.util.graph.DotDumper;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -73,6 +75,20 @@ public final class CallGraphs {
         return getCallKind(invoke.getInvokeExp());
     }
 
+    /**
+     * Updates a call graph built by CHA in place after the given classes
+     * have been added, removed or changed, re-resolving only the affected
+     * call sites. The class hierarchy in {@link pascal.taie.World} must
+     * already reflect the new program.
+     *
+     * @return the updated call graph.
+     */
+    public static CallGraph<Invoke, JMethod> updateCHACallGraph(
+            DefaultCallGraph callGraph, Collection<JClass> added,
+            Collection<JClass> removed, Collection<JClass> changed) {
+        return new CHABuilder().update(callGraph, added, removed, changed);
+    }
+
     /**
      * Dumps call graph to dot file.
      */
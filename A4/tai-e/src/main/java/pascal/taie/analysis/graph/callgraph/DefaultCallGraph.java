@@ -22,17 +22,34 @@
 
 package pascal.taie.analysis.graph.callgraph;
 
+import pascal.taie.ir.IR;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.List;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Default implementation of call graph.
  */
 public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
 
+    /**
+     * Call sites indexed by their containers and statement indexes.
+     */
+    private final TwoKeyMap<JMethod, Integer, Invoke> indexedCallSites = Maps.newTwoKeyMap();
+
+    public DefaultCallGraph() {
+        if (IRCache.isBounded()) {
+            IRCache.addRebuildListener(this, DefaultCallGraph::rebindCallSites);
+        }
+    }
+
     /**
      * Adds an entry method to this call graph.
      */
@@ -53,6 +70,7 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
                     if (stmt instanceof Invoke invoke) {
                         callSiteToContainer.put(invoke, method);
                         callSitesIn.put(method, invoke);
+                        indexedCallSites.put(method, invoke.getIndex(), invoke);
                     }
                 });
             }
@@ -77,6 +95,84 @@ public class DefaultCallGraph extends AbstractCallGraph<Invoke, JMethod> {
         }
     }
 
+    /**
+     * Removes a call edge from this call graph.
+     *
+     * @param edge the call edge to be removed
+     * @return true if the call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeEdge(Edge<Invoke, JMethod> edge) {
+        if (callSiteToEdges.remove(edge.getCallSite(), edge)) {
+            calleeToEdges.remove(edge.getCallee(), edge);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    /**
+     * Removes a reachable method from this call graph, together with its
+     * call sites and the call edges out of them. The call edges into
+     * the method are left to the caller.
+     *
+     * @return true if this call graph changed as a result of the call,
+     * otherwise false.
+     */
+    public boolean removeReachableMethod(JMethod method) {
+        if (reachableMethods.remove(method)) {
+            for (Invoke callSite : List.copyOf(callSitesIn.get(method))) {
+                List.copyOf(callSiteToEdges.get(callSite)).forEach(this::removeEdge);
+                callSiteToContainer.remove(callSite);
+                indexedCallSites.remove(method, callSite.getIndex());
+            }
+            callSitesIn.removeAll(method);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the call sites of a method with the ones of its rebuilt IR,
+     * so that this call graph does not keep the evicted IR alive.
+     */
+    private void rebindCallSites(IR ir) {
+        JMethod method = ir.getMethod();
+        for (Invoke oldCallSite : List.copyOf(callSitesIn.get(method))) {
+            Invoke callSite = (Invoke) ir.getStmt(oldCallSite.getIndex());
+            callSitesIn.remove(method, oldCallSite);
+            callSitesIn.put(method, callSite);
+            callSiteToContainer.remove(oldCallSite);
+            callSiteToContainer.put(callSite, method);
+            indexedCallSites.put(method, callSite.getIndex(), callSite);
+            for (Edge<Invoke, JMethod> edge : List.copyOf(callSiteToEdges.get(oldCallSite))) {
+                removeEdge(edge);
+                addEdge(new Edge<>(edge.getKind(), callSite, edge.getCallee()));
+            }
+        }
+    }
+
+    @Override
+    public Set<JMethod> getCalleesOf(Invoke callSite) {
+        return super.getCalleesOf(getCallSite(callSite));
+    }
+
+    @Override
+    public Stream<Edge<Invoke, JMethod>> edgesOutOf(Invoke callSite) {
+        return super.edgesOutOf(getCallSite(callSite));
+    }
+
+    /**
+     * @return the call site in this call graph that is at the same position
+     * as the given one. They differ when the given call site comes from
+     * an IR of the container that has been evicted from {@link IRCache}.
+     */
+    private Invoke getCallSite(Invoke callSite) {
+        Invoke result = indexedCallSites.get(
+                callSite.getContainer(), callSite.getIndex());
+        return result != null ? result : callSite;
+    }
+
     @Override
     public JMethod getContainerOf(Invoke invoke) {
         return invoke.getContainer();
@@ -24,6 +24,7 @@ package pascal.taie.language.classes;
 
 import pascal.taie.World;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.proginfo.MethodRef;
 import pascal.taie.language.annotation.Annotation;
 import pascal.taie.language.annotation.AnnotationHolder;
@@ -60,6 +61,10 @@ public class JMethod extends ClassMember {
      */
     private final Object methodSource;
 
+    /**
+     * The IR of this method, which is kept here when
+     * {@link IRCache} is unbounded.
+     */
     private IR ir;
 
     public JMethod(JClass declaringClass, String name, Set<Modifier> modifiers,
@@ -148,21 +153,33 @@ public class JMethod extends ClassMember {
         return methodSource;
     }
 
+    /**
+     * @return the IR of this method. The IR is built on first use. If
+     * {@link IRCache} is bounded, the IR is kept there and may be evicted,
+     * otherwise it is kept by this method.
+     */
     public IR getIR() {
         if (ir == null) {
             if (isAbstract()) {
                 throw new AnalysisException("Abstract method " + this +
                         " has no method body");
             }
-            if (isNative()) {
-                ir = World.get().getNativeModel().buildNativeIR(this);
-            } else {
-                ir = World.get().getIRBuilder().buildIR(this);
+            if (IRCache.isBounded()) {
+                return IRCache.get(this, JMethod::buildIR);
             }
+            ir = buildIR();
         }
         return ir;
     }
 
+    private IR buildIR() {
+        if (isNative()) {
+            return World.get().getNativeModel().buildNativeIR(this);
+        } else {
+            return World.get().getIRBuilder().buildIR(this);
+        }
+    }
+
     /**
      * @return the {@link MethodRef} pointing to this method.
      */
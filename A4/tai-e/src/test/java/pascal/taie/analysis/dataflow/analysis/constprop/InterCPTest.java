@@ -31,8 +31,18 @@ public class InterCPTest {
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/inter";
 
     void test(String inputClass) {
+        test(inputClass, "", "");
+    }
+
+    /**
+     * Runs a test case with extra options, which are appended to
+     * the options of inter-constprop and cg respectively. The results
+     * are compared with the same expected file as the default options.
+     */
+    void test(String inputClass, String cpOptions, String cgOptions) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:false", "-a", "cg=algorithm:cha"
+                "edge-refine:false;alias-aware:false" + cpOptions,
+                "-a", "cg=algorithm:cha" + cgOptions
                 // , "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                             // to output ICFGs for the test cases
         );
@@ -57,4 +67,11 @@ public class InterCPTest {
     public void testMultiIntArgs() {
         test("MultiIntArgs");
     }
+
+    @Test
+    public void testBoundedIRCache() {
+        // the IRs holding CFGs are pinned in the cache
+        test("Fibonacci", "", ";ir-cache-size:1");
+        test("Reference", "", ";ir-cache-size:2");
+    }
 }
@@ -22,8 +22,28 @@
 
 package pascal.taie.analysis.graph.callgraph.cha;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.callgraph.CallGraphSCCs;
+import pascal.taie.analysis.graph.callgraph.CallGraphs;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class CHATest {
     
@@ -50,4 +70,64 @@ public class CHATest {
     public void testAbstractMethod() {
         test("AbstractMethod");
     }
+
+    /**
+     * Builds the call graph of given program, updates it incrementally
+     * as if the given classes (all application classes if none is given)
+     * have been changed, and checks that the result equals the call graph
+     * built from scratch, and that its SCCs are computed again.
+     */
+    protected static void testUpdate(String main, String... changed) {
+        test(main);
+        DefaultCallGraph callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Set<JMethod> methods = callGraph.reachableMethods()
+                .collect(Collectors.toSet());
+        Set<String> edges = callGraph.edges()
+                .map(Object::toString)
+                .collect(Collectors.toSet());
+        CallGraphSCCs<JMethod> sccs = CallGraphSCCs.of(callGraph);
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        List<JClass> changedClasses = changed.length == 0 ?
+                hierarchy.applicationClasses().toList() :
+                Arrays.stream(changed).map(hierarchy::getClass).toList();
+        CallGraphs.updateCHACallGraph(callGraph, List.of(), List.of(), changedClasses);
+        Assert.assertEquals(methods, callGraph.reachableMethods()
+                .collect(Collectors.toSet()));
+        Assert.assertEquals(edges, callGraph.edges()
+                .map(Object::toString)
+                .collect(Collectors.toSet()));
+        Assert.assertNotSame(sccs, CallGraphSCCs.of(callGraph));
+    }
+
+    @Test
+    public void testUpdateVirtualCall() {
+        testUpdate("VirtualCall", "A");
+    }
+
+    @Test
+    public void testUpdateInterface() {
+        testUpdate("Interface");
+    }
+
+    @Test
+    public void testStats() throws IOException {
+        File statsFile = File.createTempFile("VirtualCall-cg-stats", ".json");
+        statsFile.deleteOnExit();
+        // the call graph is still compared with the expected one
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;stats:true;stats-file:" + statsFile);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        JsonNode stats = new ObjectMapper().readTree(statsFile);
+        Assert.assertEquals(callGraph.getNumberOfMethods(), stats.get("methods").asInt());
+        Assert.assertEquals(callGraph.getNumberOfEdges(), stats.get("edges").asInt());
+        Assert.assertFalse(stats.get("phases").isEmpty());
+    }
+
+    @Test
+    public void testBoundedIRCache() {
+        // IRs are evicted and rebuilt while building the call graph,
+        // which should still be the same as the expected one
+        Tests.test("VirtualCall", "src/test/resources/cha/", "cg",
+                "algorithm:cha;ir-cache-size:1");
+    }
 }
@@ -24,7 +24,9 @@ package pascal.taie.analysis.graph.callgraph;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import pascal.taie.World;
 import pascal.taie.analysis.ProgramAnalysis;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.ConfigException;
 import pascal.taie.ir.IRPrinter;
@@ -33,6 +35,7 @@ import pascal.taie.language.classes.JMethod;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 
 public class CallGraphBuilder extends ProgramAnalysis {
 
@@ -61,9 +64,22 @@ public class CallGraphBuilder extends ProgramAnalysis {
         };
         CallGraph<Invoke, JMethod> callGraph = builder.build();
         takeAction(callGraph);
+        if (getOptions().getBooleanOrDefault("stats", false)) {
+            CallGraphStatistics.dump(callGraph, getPhases(),
+                    getOptions().getString("stats-file"));
+        }
         return callGraph;
     }
 
+    /**
+     * @return the phases recorded by the pointer analysis
+     * that builds the call graph.
+     */
+    private Collection<CallGraphStatistics.Phase> getPhases() {
+        PointerAnalysisResult pta = World.get().getResult(algorithm);
+        return pta != null ? pta.getCallGraphPhases() : List.of();
+    }
+
     private void takeAction(CallGraph<Invoke, JMethod> callGraph) {
         String action = getOptions().getString("action");
         if (action == null) {
@@ -0,0 +1,301 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallKind;
+import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.ClassHierarchy;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Pair;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Read-only pointer analysis result backed by a memory-mapped file
+ * written by {@link PointerAnalysisResultIO}.
+ */
+class MappedPointerAnalysisResult implements PointerAnalysisResult {
+
+    private final ByteBuffer buffer;
+
+    private final List<Var> vars;
+
+    private final List<Obj> objs;
+
+    /**
+     * Offsets of the bitmaps of the points-to sets in {@link #buffer}.
+     */
+    private final Map<Var, Integer> varPts = Maps.newMap();
+
+    private final Map<Pair<Var, JField>, Integer> fieldPts = Maps.newMap();
+
+    private final Map<JField, Integer> staticPts = Maps.newMap();
+
+    /**
+     * Decoded points-to sets, which may be queried by multiple threads.
+     */
+    private final Map<Integer, Set<Obj>> decoded = Maps.newConcurrentMap();
+
+    private final DefaultCallGraph callGraph = new DefaultCallGraph();
+
+    MappedPointerAnalysisResult(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt() != PointerAnalysisResultIO.MAGIC
+                || buffer.getInt() != PointerAnalysisResultIO.VERSION) {
+            throw new AnalysisException("Not a pointer analysis result file" +
+                    " of version " + PointerAnalysisResultIO.VERSION);
+        }
+        ClassHierarchy hierarchy = World.get().getClassHierarchy();
+        TypeSystem typeSystem = World.get().getTypeSystem();
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        JMethod[] methods = new JMethod[buffer.getInt()];
+        for (int i = 0; i < methods.length; ++i) {
+            String signature = strings[buffer.getInt()];
+            methods[i] = hierarchy.getMethod(signature);
+            if (methods[i] == null) {
+                throw new AnalysisException("Cannot find method " + signature);
+            }
+        }
+        Var[] varArray = new Var[buffer.getInt()];
+        for (int i = 0; i < varArray.length; ++i) {
+            JMethod method = methods[buffer.getInt()];
+            varArray[i] = method.getIR().getVar(buffer.getInt());
+        }
+        vars = List.of(varArray);
+        JField[] fields = new JField[buffer.getInt()];
+        for (int i = 0; i < fields.length; ++i) {
+            String signature = strings[buffer.getInt()];
+            fields[i] = hierarchy.getField(signature);
+            if (fields[i] == null) {
+                throw new AnalysisException("Cannot find field " + signature);
+            }
+        }
+        Obj[] objArray = new Obj[buffer.getInt()];
+        for (int i = 0; i < objArray.length; ++i) {
+            String type = strings[buffer.getInt()];
+            String desc = strings[buffer.getInt()];
+            int method = buffer.getInt();
+            String containerType = strings[buffer.getInt()];
+            objArray[i] = new StoredObj(i, typeSystem.getType(type), desc,
+                    method == -1 ? null : methods[method],
+                    typeSystem.getType(containerType));
+        }
+        objs = List.of(objArray);
+        int[] varRows = new int[buffer.getInt()];
+        long[] varOffsets = new long[varRows.length];
+        for (int i = 0; i < varRows.length; ++i) {
+            varRows[i] = buffer.getInt();
+            varOffsets[i] = buffer.getLong();
+        }
+        int[][] fieldRows = new int[buffer.getInt()][];
+        long[] fieldOffsets = new long[fieldRows.length];
+        for (int i = 0; i < fieldRows.length; ++i) {
+            fieldRows[i] = new int[]{buffer.getInt(), buffer.getInt()};
+            fieldOffsets[i] = buffer.getLong();
+        }
+        int[] staticRows = new int[buffer.getInt()];
+        long[] staticOffsets = new long[staticRows.length];
+        for (int i = 0; i < staticRows.length; ++i) {
+            staticRows[i] = buffer.getInt();
+            staticOffsets[i] = buffer.getLong();
+        }
+        for (int i : readInts()) {
+            callGraph.addEntryMethod(methods[i]);
+        }
+        for (int i : readInts()) {
+            callGraph.addReachableMethod(methods[i]);
+        }
+        CallKind[] kinds = CallKind.values();
+        int nEdges = buffer.getInt();
+        for (int i = 0; i < nEdges; ++i) {
+            JMethod caller = methods[buffer.getInt()];
+            Invoke callSite = (Invoke) caller.getIR().getStmt(buffer.getInt());
+            JMethod callee = methods[buffer.getInt()];
+            callGraph.addEdge(new Edge<>(kinds[buffer.getInt()], callSite, callee));
+        }
+        // the bitmaps follow the call graph
+        int base = buffer.position();
+        for (int i = 0; i < varRows.length; ++i) {
+            varPts.put(varArray[varRows[i]], toOffset(base, varOffsets[i]));
+        }
+        for (int i = 0; i < fieldRows.length; ++i) {
+            fieldPts.put(new Pair<>(varArray[fieldRows[i][0]], fields[fieldRows[i][1]]),
+                    toOffset(base, fieldOffsets[i]));
+        }
+        for (int i = 0; i < staticRows.length; ++i) {
+            staticPts.put(fields[staticRows[i]], toOffset(base, staticOffsets[i]));
+        }
+    }
+
+    private int[] readInts() {
+        int[] ints = new int[buffer.getInt()];
+        for (int i = 0; i < ints.length; ++i) {
+            ints[i] = buffer.getInt();
+        }
+        return ints;
+    }
+
+    private static int toOffset(int base, long offset) {
+        return Math.toIntExact(base + offset);
+    }
+
+    @Override
+    public Collection<Var> getVars() {
+        return vars;
+    }
+
+    @Override
+    public Collection<Obj> getObjects() {
+        return objs;
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var var) {
+        return getPointsToSet(varPts.get(var));
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(Var base, JField field) {
+        return getPointsToSet(fieldPts.get(new Pair<>(base, field)));
+    }
+
+    @Override
+    public Set<Obj> getPointsToSet(JField field) {
+        return getPointsToSet(staticPts.get(field));
+    }
+
+    private Set<Obj> getPointsToSet(Integer offset) {
+        if (offset == null) {
+            return Set.of();
+        }
+        return decoded.computeIfAbsent(offset, this::decode);
+    }
+
+    /**
+     * Decodes the bitmap at the given offset with absolute reads,
+     * which are safe for concurrent queries.
+     */
+    private Set<Obj> decode(int offset) {
+        int n = buffer.getInt(offset);
+        int[] keys = new int[n];
+        long[] words = new long[n];
+        int size = 0;
+        for (int i = 0, pos = offset + 4; i < n; ++i, pos += 12) {
+            keys[i] = buffer.getInt(pos);
+            words[i] = buffer.getLong(pos + 4);
+            size += Long.bitCount(words[i]);
+        }
+        return Collections.unmodifiableSet(new BitmapSet(keys, words, size));
+    }
+
+    @Override
+    public CallGraph<Invoke, JMethod> getCallGraph() {
+        return callGraph;
+    }
+
+    /**
+     * Set of objects represented by a sparse bitmap over object numbers.
+     */
+    private class BitmapSet extends AbstractSet<Obj> {
+
+        private final int[] keys;
+
+        private final long[] words;
+
+        private final int size;
+
+        private BitmapSet(int[] keys, long[] words, int size) {
+            this.keys = keys;
+            this.words = words;
+            this.size = size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof StoredObj obj)) {
+                return false;
+            }
+            int id = obj.getId();
+            int i = Arrays.binarySearch(keys, id >>> 6);
+            return i >= 0 && (words[i] & (1L << id)) != 0;
+        }
+
+        @Override
+        public Iterator<Obj> iterator() {
+            return new Iterator<>() {
+
+                private int i = 0;
+
+                private long word = words.length > 0 ? words[0] : 0;
+
+                @Override
+                public boolean hasNext() {
+                    while (word == 0 && i + 1 < words.length) {
+                        word = words[++i];
+                    }
+                    return word != 0;
+                }
+
+                @Override
+                public Obj next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int bit = Long.numberOfTrailingZeros(word);
+                    word &= word - 1;
+                    return objs.get((keys[i] << 6) + bit);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
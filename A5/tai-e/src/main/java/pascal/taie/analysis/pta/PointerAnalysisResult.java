@@ -23,6 +23,7 @@
 package pascal.taie.analysis.pta;
 
 import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphStatistics;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.stmt.Invoke;
@@ -30,6 +31,7 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 public interface PointerAnalysisResult {
@@ -63,4 +65,12 @@ public interface PointerAnalysisResult {
      * @return the resulting call graph (without contexts).
      */
     CallGraph<Invoke, JMethod> getCallGraph();
+
+    /**
+     * @return the phases of the analysis that built the call graph,
+     * which are used for reporting call graph statistics.
+     */
+    default Collection<CallGraphStatistics.Phase> getCallGraphPhases() {
+        return List.of();
+    }
 }
@@ -0,0 +1,88 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.language.type.Type;
+
+import java.util.Optional;
+
+/**
+ * Stand-in of an object loaded from a pointer analysis result file.
+ * The allocation of the object is given by the description of
+ * the original object.
+ */
+class StoredObj implements Obj {
+
+    private final int id;
+
+    private final Type type;
+
+    private final String desc;
+
+    private final JMethod containerMethod;
+
+    private final Type containerType;
+
+    StoredObj(int id, Type type, String desc,
+              JMethod containerMethod, Type containerType) {
+        this.id = id;
+        this.type = type;
+        this.desc = desc;
+        this.containerMethod = containerMethod;
+        this.containerType = containerType;
+    }
+
+    /**
+     * @return the number of this object in the result file.
+     */
+    int getId() {
+        return id;
+    }
+
+    @Override
+    public Type getType() {
+        return type;
+    }
+
+    @Override
+    public Object getAllocation() {
+        return desc;
+    }
+
+    @Override
+    public Optional<JMethod> getContainerMethod() {
+        return Optional.ofNullable(containerMethod);
+    }
+
+    @Override
+    public Type getContainerType() {
+        return containerType;
+    }
+
+    @Override
+    public String toString() {
+        return desc;
+    }
+}
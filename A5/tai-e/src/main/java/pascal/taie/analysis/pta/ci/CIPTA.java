@@ -24,9 +24,16 @@ package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultIO;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.AllocationTypeBasedModel;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.config.AnalysisConfig;
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IRCache;
+
+import java.nio.file.Path;
 
 /**
  * Context-insensitive pointer analysis.
@@ -41,11 +48,43 @@ public class CIPTA extends ProgramAnalysis {
 
     @Override
     public PointerAnalysisResult analyze() {
-        HeapModel heapModel = new AllocationSiteBasedModel(getOptions());
-        Solver solver = new Solver(heapModel);
+        Object irCacheSize = getOptions().get("ir-cache-size");
+        IRCache.setCapacity(irCacheSize != null ?
+                (Integer) irCacheSize : IRCache.UNBOUNDED);
+        HeapModel heapModel = getHeapModel(getOptions());
+        Solver solver = new Solver(heapModel, getThreads(),
+                getOptions().getBooleanOrDefault("type-filter", false));
         solver.solve();
         CIPTAResult result = solver.getResult();
         new ResultProcessor(getOptions()).process(result);
+        String binaryFile = getOptions().getString("binary-file");
+        if (binaryFile != null) {
+            PointerAnalysisResultIO.write(result, Path.of(binaryFile));
+        }
         return result;
     }
+
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        String heapModel = options.getString("heap-model");
+        if (heapModel == null || heapModel.equals("allocation-site")) {
+            return new AllocationSiteBasedModel(options);
+        } else if (heapModel.equals("allocation-type")) {
+            return new AllocationTypeBasedModel(options);
+        } else {
+            throw new ConfigException("Unexpected heap model: " + heapModel);
+        }
+    }
+
+    /**
+     * @return number of threads given by option "threads"; a non-positive
+     * value means all available processors.
+     */
+    private int getThreads() {
+        Object threads = getOptions().get("threads");
+        if (threads == null) {
+            return 1;
+        }
+        int n = getOptions().getInt("threads");
+        return n > 0 ? n : Runtime.getRuntime().availableProcessors();
+    }
 }
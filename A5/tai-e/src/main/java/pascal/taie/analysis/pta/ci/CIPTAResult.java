@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphStatistics;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.exp.Var;
@@ -49,6 +50,8 @@ class CIPTAResult implements PointerAnalysisResult {
 
     private final CallGraph<Invoke, JMethod> callGraph;
 
+    private final Collection<CallGraphStatistics.Phase> callGraphPhases;
+
     /**
      * Points-to sets of field expressions, e.g., v.f.
      */
@@ -57,9 +60,11 @@ class CIPTAResult implements PointerAnalysisResult {
     private Set<Obj> objects;
 
     CIPTAResult(PointerFlowGraph pointerFlowGraph,
-                CallGraph<Invoke, JMethod> callGraph) {
+                CallGraph<Invoke, JMethod> callGraph,
+                Collection<CallGraphStatistics.Phase> callGraphPhases) {
         this.pointerFlowGraph = pointerFlowGraph;
         this.callGraph = callGraph;
+        this.callGraphPhases = callGraphPhases;
     }
 
     @Override
@@ -120,6 +125,11 @@ class CIPTAResult implements PointerAnalysisResult {
         return callGraph;
     }
 
+    @Override
+    public Collection<CallGraphStatistics.Phase> getCallGraphPhases() {
+        return callGraphPhases;
+    }
+
     PointerFlowGraph getPointerFlowGraph() {
         return pointerFlowGraph;
     }
@@ -0,0 +1,67 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense indexes to the abstract objects produced by the heap
+ * model, which are the bits of {@link PointsToSet}.
+ */
+class ObjIndexer {
+
+    private final Map<Obj, Integer> indexes = Maps.newMap();
+
+    private final List<Obj> objs = new ArrayList<>();
+
+    /**
+     * @return the index of given object. A new index is assigned if
+     * the object has not been indexed.
+     */
+    int getIndex(Obj obj) {
+        Integer index = indexes.get(obj);
+        if (index == null) {
+            index = objs.size();
+            indexes.put(obj, index);
+            objs.add(obj);
+        }
+        return index;
+    }
+
+    /**
+     * @return the index of given object, or -1 if it has not been indexed.
+     */
+    int getIndexIfPresent(Obj obj) {
+        Integer index = indexes.get(obj);
+        return index != null ? index : -1;
+    }
+
+    Obj getObj(int index) {
+        return objs.get(index);
+    }
+}
@@ -29,9 +29,21 @@ package pascal.taie.analysis.pta.ci;
  */
 abstract class Pointer {
 
-    private final PointsToSet pointsToSet = new PointsToSet();
+    private PointsToSet pointsToSet;
+
+    Pointer(ObjIndexer objIndexer) {
+        pointsToSet = new PointsToSet(objIndexer);
+    }
 
     PointsToSet getPointsToSet() {
         return pointsToSet;
     }
+
+    /**
+     * Replaces the points-to set, e.g., to share it among the pointers
+     * of a collapsed cycle.
+     */
+    void setPointsToSet(PointsToSet pointsToSet) {
+        this.pointsToSet = pointsToSet;
+    }
 }
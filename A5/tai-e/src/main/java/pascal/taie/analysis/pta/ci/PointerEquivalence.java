@@ -0,0 +1,158 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.LValue;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline pointer-equivalence pre-pass based on hash-based value numbering.
+ * <p>
+ * A variable defined by exactly one statement gets its value number from
+ * the right-hand side of that statement: a copy takes the number of the
+ * copied variable, and a load takes the number hashed from its base and
+ * field, so loads of the same field from equivalent bases are equivalent.
+ * Any other variable gets a fresh number. Variables with equal numbers
+ * must have equal points-to sets in {@link Solver}.
+ */
+final class PointerEquivalence {
+
+    private static final int STATIC_LOAD = 0;
+
+    private static final int INSTANCE_LOAD = 1;
+
+    private static final int ARRAY_LOAD = 2;
+
+    /**
+     * Value number marking a variable whose number is being computed.
+     */
+    private static final int IN_PROGRESS = -1;
+
+    /**
+     * Hashed right-hand side of a load.
+     */
+    private record Label(int kind, int base, Object field) {
+    }
+
+    /**
+     * Unique definition of each variable defined exactly once.
+     */
+    private final Map<Var, Stmt> defs = Maps.newMap();
+
+    /**
+     * Variables that are assigned outside the method body
+     * or by more than one statement.
+     */
+    private final Set<Var> unknowns = Sets.newSet();
+
+    private final Map<Var, Integer> numbers = Maps.newMap();
+
+    private final Map<Label, Integer> labels = Maps.newMap();
+
+    private int counter = 0;
+
+    private PointerEquivalence(IR ir) {
+        if (ir.getThis() != null) {
+            unknowns.add(ir.getThis());
+        }
+        unknowns.addAll(ir.getParams());
+        for (Stmt stmt : ir.getStmts()) {
+            LValue def = stmt.getDef().orElse(null);
+            if (def instanceof Var var && !unknowns.contains(var)
+                    && defs.put(var, stmt) != null) {
+                defs.remove(var);
+                unknowns.add(var);
+            }
+        }
+    }
+
+    /**
+     * Computes the pointer-equivalent variables of the given IR.
+     *
+     * @return map from each variable that is equivalent to an earlier
+     * variable of the IR to that variable.
+     */
+    static Map<Var, Var> compute(IR ir) {
+        PointerEquivalence equivalence = new PointerEquivalence(ir);
+        Map<Integer, Var> leaders = Maps.newMap();
+        Map<Var, Var> result = Maps.newMap();
+        for (Var var : ir.getVars()) {
+            Var leader = leaders.putIfAbsent(equivalence.getNumber(var), var);
+            if (leader != null) {
+                result.put(var, leader);
+            }
+        }
+        return result;
+    }
+
+    private int getNumber(Var var) {
+        Integer number = numbers.get(var);
+        if (number != null) {
+            // the definitions form a cycle, so a fresh number is safe
+            // though it may miss some equivalences
+            return number == IN_PROGRESS ? newNumber(var) : number;
+        }
+        numbers.put(var, IN_PROGRESS);
+        number = computeNumber(var);
+        numbers.put(var, number);
+        return number;
+    }
+
+    private int computeNumber(Var var) {
+        Stmt def = defs.get(var);
+        if (def instanceof Copy copy) {
+            return getNumber(copy.getRValue());
+        }
+        if (def instanceof LoadField load) {
+            Object field = load.getFieldRef().resolve();
+            Label label = load.isStatic()
+                    ? new Label(STATIC_LOAD, -1, field)
+                    : new Label(INSTANCE_LOAD, getNumber(
+                    ((InstanceFieldAccess) load.getFieldAccess()).getBase()), field);
+            return labels.computeIfAbsent(label, l -> counter++);
+        }
+        if (def instanceof LoadArray load) {
+            Label label = new Label(ARRAY_LOAD,
+                    getNumber(load.getArrayAccess().getBase()), null);
+            return labels.computeIfAbsent(label, l -> counter++);
+        }
+        return counter++;
+    }
+
+    private int newNumber(Var var) {
+        int number = counter++;
+        numbers.put(var, number);
+        return number;
+    }
+}
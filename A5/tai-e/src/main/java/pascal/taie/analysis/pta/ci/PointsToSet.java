@@ -23,33 +23,64 @@
 package pascal.taie.analysis.pta.ci;
 
 import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.util.collection.Sets;
 
-import java.util.Collections;
+import java.util.AbstractSet;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.PrimitiveIterator;
 import java.util.Set;
+import java.util.Spliterators;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * Represents of points-to sets.
+ * Represents of points-to sets, which are sparse bitmaps over
+ * the indexes of objects.
+ * <p>
+ * The bitmap of a set may be shared with other sets, e.g., by
+ * {@link #copy()} or {@link #intern(Map)}; a shared bitmap is
+ * copied before the set changes.
  */
 class PointsToSet implements Iterable<Obj> {
 
-    private final Set<Obj> set = Sets.newHybridSet();
+    private final ObjIndexer objIndexer;
+
+    private SparseBitmap bits;
+
+    /**
+     * Whether {@link #bits} may be shared with other points-to sets.
+     */
+    private boolean shared;
 
     /**
      * Constructs an empty points-to set.
      */
-    PointsToSet() {
+    PointsToSet(ObjIndexer objIndexer) {
+        this(objIndexer, new SparseBitmap());
     }
 
     /**
      * Constructs a points-to set containing one object.
      */
-    PointsToSet(Obj obj) {
+    PointsToSet(ObjIndexer objIndexer, Obj obj) {
+        this(objIndexer);
         addObject(obj);
     }
 
+    private PointsToSet(ObjIndexer objIndexer, SparseBitmap bits) {
+        this.objIndexer = objIndexer;
+        this.bits = bits;
+    }
+
+    private SparseBitmap getWritableBits() {
+        if (shared) {
+            bits = bits.copy();
+            shared = false;
+        }
+        return bits;
+    }
+
     /**
      * Adds an object to this set.
      *
@@ -57,54 +88,193 @@ class PointsToSet implements Iterable<Obj> {
      * otherwise false.
      */
     boolean addObject(Obj obj) {
-        return set.add(obj);
+        int index = objIndexer.getIndex(obj);
+        return !bits.contains(index) && getWritableBits().add(index);
+    }
+
+    /**
+     * Adds all objects of given set to this set. The bitmap of this set
+     * is copied (if it is shared) only when new objects are added.
+     *
+     * @return a new points-to set of the objects that are newly added
+     * to this set.
+     */
+    PointsToSet addAllDiff(PointsToSet pts) {
+        if (pts.bits == bits) {
+            return new PointsToSet(objIndexer);
+        }
+        SparseBitmap diff = bits.diff(pts.bits);
+        if (!diff.isEmpty()) {
+            getWritableBits().addDisjoint(diff);
+        }
+        return new PointsToSet(objIndexer, diff);
+    }
+
+    /**
+     * @return a new points-to set of the objects of given set that are
+     * not in this set. This set is not changed.
+     */
+    PointsToSet diff(PointsToSet pts) {
+        return new PointsToSet(objIndexer, bits.diff(pts.bits));
+    }
+
+    /**
+     * Adds all objects of given set to this set. The bitmap of this set
+     * is copied (if it is shared) only when new objects are added.
+     *
+     * @return true if this points-to set changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addAll(PointsToSet pts) {
+        if (pts.bits == bits) {
+            return false;
+        }
+        SparseBitmap diff = bits.diff(pts.bits);
+        if (diff.isEmpty()) {
+            return false;
+        }
+        getWritableBits().addDisjoint(diff);
+        return true;
+    }
+
+    /**
+     * @return a new points-to set of the objects in this set that
+     * satisfy the given predicate.
+     */
+    PointsToSet filter(Predicate<Obj> predicate) {
+        SparseBitmap result = new SparseBitmap();
+        for (PrimitiveIterator.OfInt it = bits.iterator(); it.hasNext(); ) {
+            int index = it.nextInt();
+            if (predicate.test(objIndexer.getObj(index))) {
+                result.add(index);
+            }
+        }
+        return new PointsToSet(objIndexer, result);
+    }
+
+    /**
+     * @return a new points-to set containing the objects of this set,
+     * which shares the bitmap of this set until either set changes.
+     */
+    PointsToSet copy() {
+        PointsToSet copy = new PointsToSet(objIndexer, bits);
+        shared = copy.shared = true;
+        return copy;
+    }
+
+    /**
+     * @return a new points-to set containing the objects of this set,
+     * which has its own bitmap, so that neither set is marked shared.
+     */
+    PointsToSet snapshot() {
+        return new PointsToSet(objIndexer, bits.copy());
+    }
+
+    /**
+     * Replaces the bitmap of this set with the equal bitmap in the given
+     * table, or adds a compact copy of the bitmap to the table, so that
+     * the sets interned by the same table share storage by content.
+     */
+    void intern(Map<SparseBitmap, SparseBitmap> table) {
+        SparseBitmap canonical = table.get(bits);
+        if (canonical == null) {
+            canonical = bits.copy();
+            table.put(canonical, canonical);
+        }
+        bits = canonical;
+        shared = true;
     }
 
     /**
      * @return true if this points-to set contains the given object, otherwise false.
      */
     boolean contains(Obj obj) {
-        return set.contains(obj);
+        int index = objIndexer.getIndexIfPresent(obj);
+        return index != -1 && bits.contains(index);
     }
 
     /**
      * @return whether this set if empty.
      */
     boolean isEmpty() {
-        return set.isEmpty();
+        return bits.isEmpty();
     }
 
     /**
      * @return the number of objects in this set.
      */
     int size() {
-        return set.size();
+        return bits.cardinality();
     }
 
     /**
      * @return all objects in this set.
      */
     Stream<Obj> objects() {
-        return set.stream();
+        return StreamSupport.stream(
+                Spliterators.spliterator(iterator(), size(), 0), false);
     }
 
     /**
      * @return all objects in this set.
      */
     Set<Obj> getObjects() {
-        return Collections.unmodifiableSet(set);
+        return new AbstractSet<>() {
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Obj obj && PointsToSet.this.contains(obj);
+            }
+
+            @Override
+            public Iterator<Obj> iterator() {
+                return PointsToSet.this.iterator();
+            }
+
+            @Override
+            public int size() {
+                return PointsToSet.this.size();
+            }
+        };
     }
 
     @Override
     public Iterator<Obj> iterator() {
-        return set.iterator();
+        PrimitiveIterator.OfInt it = bits.iterator();
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Obj next() {
+                return objIndexer.getObj(it.nextInt());
+            }
+        };
+    }
+
+    /**
+     * Two points-to sets are equal if they contain the same objects;
+     * interned sets are compared by reference to their bitmaps.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PointsToSet other)) {
+            return false;
+        }
+        return bits == other.bits || bits.equals(other.bits);
     }
 
     @Override
-    public String toString() {
-        return set.toString();
+    public int hashCode() {
+        return bits.hashCode();
     }
 
-    public void foreach() {
+    @Override
+    public String toString() {
+        return getObjects().toString();
     }
 }
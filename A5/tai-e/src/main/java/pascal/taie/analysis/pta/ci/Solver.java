@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.ci;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphStatistics;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.DefaultCallGraph;
@@ -32,10 +33,12 @@ import pascal.taie.analysis.graph.callgraph.Edge;
 import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.NewExp;
 import pascal.taie.ir.exp.Var;
 import pascal.taie.ir.proginfo.MethodRef;
+import pascal.taie.ir.stmt.Cast;
 import pascal.taie.ir.stmt.Copy;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
@@ -49,15 +52,56 @@ import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.util.AnalysisException;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 class Solver {
 
     private static final Logger logger = LogManager.getLogger(Solver.class);
 
+    /**
+     * Levels of a wave smaller than this are propagated on the calling thread.
+     */
+    private static final int PARALLEL_LEVEL_SIZE = 64;
+
     private final HeapModel heapModel;
 
+    /**
+     * Number of threads used to propagate points-to sets. If it is
+     * greater than 1, the solver propagates in waves.
+     */
+    private final int threads;
+
+    /**
+     * Whether to filter the objects flowing along cast, parameter and
+     * receiver edges by the cast types, declared parameter types and
+     * the types of this variables. If it is off, these edges pass all
+     * objects, e.g., x = (T) y passes every object of y to x.
+     */
+    private final boolean typeFilter;
+
+    /**
+     * Cache of subtype checks, i.e., type filter -> object type -> result.
+     */
+    private final Map<Type, Map<Type, Boolean>> subtypes = Maps.newConcurrentMap();
+
+    private TypeSystem typeSystem;
+
+    private ObjIndexer objIndexer;
+
     private DefaultCallGraph callGraph;
 
     private PointerFlowGraph pointerFlowGraph;
@@ -68,8 +112,25 @@ class Solver {
 
     private ClassHierarchy hierarchy;
 
-    Solver(HeapModel heapModel) {
+    /**
+     * Variables of reachable methods that are used by call edges,
+     * taken from the IRs processed by {@link #addReachable(JMethod)}.
+     * They are kept here instead of being looked up from the IRs,
+     * which may be evicted from {@link IRCache} and rebuilt with
+     * new variables.
+     */
+    private final Map<JMethod, MethodVars> methodVars = Maps.newMap();
+
+    /**
+     * Time and call edges of each phase of the solver,
+     * which are reported by call graph statistics.
+     */
+    private final Map<String, CallGraphStatistics.Phase> phases = new LinkedHashMap<>();
+
+    Solver(HeapModel heapModel, int threads, boolean typeFilter) {
         this.heapModel = heapModel;
+        this.threads = threads;
+        this.typeFilter = typeFilter;
     }
 
     /**
@@ -77,7 +138,12 @@ class Solver {
      */
     void solve() {
         initialize();
-        analyze();
+        if (threads > 1) {
+            analyzeInWaves();
+        } else {
+            analyze();
+        }
+        internPointsToSets();
     }
 
     /**
@@ -85,10 +151,12 @@ class Solver {
      */
     private void initialize() {
         workList = new WorkList();
-        pointerFlowGraph = new PointerFlowGraph();
+        objIndexer = new ObjIndexer();
+        pointerFlowGraph = new PointerFlowGraph(objIndexer);
         callGraph = new DefaultCallGraph();
         stmtProcessor = new StmtProcessor();
         hierarchy = World.get().getClassHierarchy();
+        typeSystem = World.get().getTypeSystem();
         // initialize main method
         JMethod main = World.get().getMainMethod();
         callGraph.addEntryMethod(main);
@@ -101,14 +169,37 @@ class Solver {
     private void addReachable(JMethod method) {
         // Done - finish me
         // Basically we construct the PFG that doesn't need object in this method
-        if (callGraph.addReachableMethod(method)) {
+        long start = System.nanoTime();
+        boolean isNew = callGraph.addReachableMethod(method);
+        getPhase("reachable-methods").record(System.nanoTime() - start, 0);
+        if (isNew) {
+            // the IR has just been used by the call graph, so it is
+            // the same one as the call sites recorded there
             IR methodBody = method.getIR();
+            methodVars.put(method, new MethodVars(methodBody));
+            // share one points-to set among equivalent variables
+            PointerEquivalence.compute(methodBody).forEach((var, leader) ->
+                    pointerFlowGraph.merge(pointerFlowGraph.getVarPtr(var),
+                            pointerFlowGraph.getVarPtr(leader)));
             methodBody.getStmts().forEach(stmt -> {
                     stmt.accept(stmtProcessor);
             });
         }
     }
 
+    /**
+     * This variable, parameters and return variables of a method.
+     * The lists are copied so that they do not keep the IR alive.
+     */
+    private record MethodVars(@Nullable Var thisVar, List<Var> params,
+                              List<Var> returnVars) {
+
+        private MethodVars(IR ir) {
+            this(ir.getThis(), List.copyOf(ir.getParams()),
+                    List.copyOf(ir.getReturnVars()));
+        }
+    }
+
     /**
      * Processes statements in new reachable methods.
      */
@@ -122,7 +213,7 @@ class Solver {
             VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
             Obj obj = heapModel.getObj(stmt);
             //add {x,o{i}} to worklist
-            workList.addEntry(varPtr, new PointsToSet(obj));
+            workList.addEntry(varPtr, new PointsToSet(objIndexer, obj));
             return null;
         }
 
@@ -136,6 +227,16 @@ class Solver {
             return null;
         }
 
+        @Override
+        // x = (T) y;
+        public Void visit(Cast stmt) {
+            VarPtr lPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
+            VarPtr rPtr = pointerFlowGraph.getVarPtr(stmt.getRValue().getValue());
+            // y->x, only for objects of type T if type filter is on
+            addPFGEdge(rPtr, lPtr, typeFilter ? stmt.getRValue().getCastType() : null);
+            return null;
+        }
+
         @Override
         // static store T.f = y;
         public Void visit(StoreField stmt) {
@@ -180,14 +281,51 @@ class Solver {
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge "source -> target" with the given type filter,
+     * which may be null, to the PFG.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, Type filter) {
         // Done - finish me
         // add edge s->t
-        if (pointerFlowGraph.addEdge(source, target))  {
-            if (!source.getPointsToSet().isEmpty())
-                workList.addEntry(target, source.getPointsToSet());
+        if (pointerFlowGraph.addEdge(source, target, filter))  {
+            PointsToSet pts = source.getPointsToSet();
+            if (!pts.isEmpty()) {
+                // enqueue a snapshot, as the live set of source would be
+                // marked shared by the work list and copied on its next change
+                Type f = pointerFlowGraph.getFilter(
+                        source, pointerFlowGraph.getRepresentative(target));
+                PointsToSet out = f == null ? pts.snapshot() : filter(pts, f);
+                if (!out.isEmpty()) {
+                    workList.addEntry(target, out);
+                }
+            }
         }
     }
 
+    /**
+     * @return the objects of the given set that may flow along an edge
+     * with the given type filter, which may be null.
+     */
+    private PointsToSet filter(PointsToSet pts, Type filter) {
+        return filter == null ? pts :
+                pts.filter(obj -> isSubtype(filter, obj.getType()));
+    }
+
+    private boolean isSubtype(Type parent, Type child) {
+        // the type system is not thread-safe, and waves filter
+        // objects on several threads
+        return subtypes.computeIfAbsent(parent, t -> Maps.newConcurrentMap())
+                .computeIfAbsent(child, t -> {
+                    synchronized (typeSystem) {
+                        return typeSystem.isSubtype(parent, t);
+                    }
+                });
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
@@ -200,47 +338,62 @@ class Solver {
             Pointer p = wlEntry.pointer();
             PointsToSet pts = wlEntry.pointsToSet();
             PointsToSet delta = propagate(p, pts);
-            // p is a variable pointer
-            if (p instanceof VarPtr varptr) {
-                // x is the variable
-                Var x = varptr.getVar();
-                // pts(x) = {o1, o2, ...}
-                // for each object o_i
-                delta.forEach(obj -> {
-                    // o.f = y
-                    x.getStoreFields().forEach( stmt -> {
-                            VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getRValue());
-                            JField field = stmt.getFieldRef().resolve();
-                            InstanceField instanceField = pointerFlowGraph.getInstanceField(obj, field);
-                            addPFGEdge(varPtr, instanceField);
-                            }
-                    );
-                    // y = o.f
-                    x.getLoadFields().forEach( stmt -> {
-                            VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
-                            JField field = stmt.getFieldRef().resolve();
-                            InstanceField instanceField = pointerFlowGraph.getInstanceField(obj, field);
-                            addPFGEdge(instanceField, varPtr);
-                            }
-                    );
-                    // x[i] = y
-                    x.getStoreArrays().forEach( stmt -> {
-                            VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getRValue());
-                            ArrayIndex arrayIndex = pointerFlowGraph.getArrayIndex(obj);
-                            addPFGEdge(varPtr, arrayIndex);
-                            }
-                    );
-                    // y = x[i]
-                    x.getLoadArrays().forEach( stmt-> {
-                            VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
-                            ArrayIndex arrayIndex = pointerFlowGraph.getArrayIndex(obj);
-                            addPFGEdge(arrayIndex, varPtr);
-                            }
-                    );
-                    // r = o.f(a1,...an)
-                    processCall(x, obj);
-                });
+            if (!delta.isEmpty()) {
+                processNewObjects(p, delta);
+                collapseCycleOf(p);
+            }
+        }
+    }
+
+    /**
+     * Processes the objects newly pointed to by a pointer, i.e., adds the
+     * field, array and call constraints of the variables collapsed with it.
+     */
+    private void processNewObjects(Pointer p, PointsToSet delta) {
+        // p and the pointers collapsed with it share the new objects
+        processNewObjects(pointerFlowGraph.getMembersOf(p), delta);
+    }
+
+    /**
+     * Processes the objects newly pointed to by the given pointers.
+     */
+    private void processNewObjects(Collection<Pointer> members, PointsToSet delta) {
+        for (Pointer member : members) {
+            if (!(member instanceof VarPtr varptr)) {
+                continue;
+            }
+            // x is the variable
+            Var x = varptr.getVar();
+            // pts(x) = {o1, o2, ...}; each statement is resolved once
+            // and then connected to all new objects o_i in a batch
+            // o.f = y
+            for (StoreField stmt : x.getStoreFields()) {
+                VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getRValue());
+                JField field = stmt.getFieldRef().resolve();
+                delta.forEach(obj -> addPFGEdge(varPtr,
+                        pointerFlowGraph.getInstanceField(obj, field)));
+            }
+            // y = o.f
+            for (LoadField stmt : x.getLoadFields()) {
+                VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
+                JField field = stmt.getFieldRef().resolve();
+                delta.forEach(obj -> addPFGEdge(
+                        pointerFlowGraph.getInstanceField(obj, field), varPtr));
+            }
+            // x[i] = y
+            for (StoreArray stmt : x.getStoreArrays()) {
+                VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getRValue());
+                delta.forEach(obj -> addPFGEdge(varPtr,
+                        pointerFlowGraph.getArrayIndex(obj)));
+            }
+            // y = x[i]
+            for (LoadArray stmt : x.getLoadArrays()) {
+                VarPtr varPtr = pointerFlowGraph.getVarPtr(stmt.getLValue());
+                delta.forEach(obj -> addPFGEdge(
+                        pointerFlowGraph.getArrayIndex(obj), varPtr));
             }
+            // r = o.f(a1,...an)
+            processCall(x, delta);
         }
     }
 
@@ -250,46 +403,310 @@ class Solver {
      */
     private PointsToSet propagate(Pointer pointer, PointsToSet pointsToSet) {
         // Done - finish me
-        PointsToSet delta = new PointsToSet();
-        if (!pointsToSet.isEmpty()) {
-            PointsToSet ptn = pointer.getPointsToSet();
-            pointsToSet.forEach(obj -> {
-                    if (ptn.addObject(obj)) {
-                        delta.addObject(obj);
+        // delta = pointsToSet - pt(pointer), computed word by word
+        PointsToSet pt = pointer.getPointsToSet();
+        PointsToSet delta = pt.addAllDiff(pointsToSet);
+        if (!delta.isEmpty()) {
+            for (Pointer ptr : pointerFlowGraph.getSuccsOf(pointer)) {
+                PointsToSet out = filter(delta, pointerFlowGraph.getFilter(pointer, ptr));
+                if (!out.isEmpty()) {
+                    workList.addEntry(ptr, out);
+                }
+            }
+        }
+        return delta;
+    }
+
+    /**
+     * Looks for a cycle through the PFG edges of a pointer whose points-to
+     * set has just changed, and collapses the cycle if one is found.
+     */
+    private void collapseCycleOf(Pointer pointer) {
+        PointsToSet pt = pointer.getPointsToSet();
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            // pointers on a cycle end up with equal points-to sets,
+            // so equal sizes are the cue to look for one
+            PointsToSet succPt = succ.getPointsToSet();
+            if (succPt != pt && succPt.size() == pt.size()) {
+                List<Pointer> cycle = pointerFlowGraph.findCycle(pointer, succ);
+                if (!cycle.isEmpty()) {
+                    collapseCycle(cycle);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collapses the pointers on a cycle of the PFG so that they share
+     * one points-to set, which starts as the union of their old sets.
+     * Each old pointer class only receives the objects it lacked: they are
+     * sent along its old PFG edges and processed for its members, so the
+     * objects that a class already had are not propagated again.
+     *
+     * @param cycle representatives of the pointer classes on the cycle
+     */
+    private void collapseCycle(List<Pointer> cycle) {
+        PointsToSet union = new PointsToSet(objIndexer);
+        cycle.forEach(p -> union.addAll(p.getPointsToSet()));
+        List<CollapsedClass> classes = new ArrayList<>(cycle.size());
+        for (Pointer p : cycle) {
+            PointsToSet lacked = p.getPointsToSet().diff(union);
+            if (!lacked.isEmpty()) {
+                List<OutEdge> outEdges = new ArrayList<>();
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(p)) {
+                    outEdges.add(new OutEdge(succ, pointerFlowGraph.getFilter(p, succ)));
+                }
+                classes.add(new CollapsedClass(
+                        List.copyOf(pointerFlowGraph.getMembersOf(p)), outEdges, lacked));
+            }
+        }
+        Pointer rep = pointerFlowGraph.collapse(cycle);
+        pointerFlowGraph.getMembersOf(rep).forEach(p -> p.setPointsToSet(union));
+        for (CollapsedClass c : classes) {
+            for (OutEdge edge : c.outEdges()) {
+                if (pointerFlowGraph.getRepresentative(edge.target()) != rep) {
+                    PointsToSet out = filter(c.lacked(), edge.filter());
+                    if (!out.isEmpty()) {
+                        workList.addEntry(edge.target(), out);
                     }
-            });
-            pointerFlowGraph.getSuccsOf(pointer).forEach( ptr -> {
-                    workList.addEntry(ptr, delta);
+                }
+            }
+            processNewObjects(c.members(), c.lacked());
+        }
+    }
+
+    /**
+     * Pointer class on a collapsed cycle, with its PFG edges before the
+     * collapse and the objects of the cycle that it lacked.
+     */
+    private record CollapsedClass(List<Pointer> members, List<OutEdge> outEdges,
+                                  PointsToSet lacked) {
+    }
+
+    /**
+     * PFG edge to the given target with the given type filter.
+     */
+    private record OutEdge(Pointer target, Type filter) {
+    }
+
+    /**
+     * Processes work-list entries in waves until the work-list is empty.
+     * Each wave propagates the pending objects through the whole PFG part
+     * reachable from their pointers, so the number of waves depends on
+     * how often new PFG edges are added rather than on the PFG depth.
+     */
+    private void analyzeInWaves() {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (!workList.isEmpty()) {
+                runWave(pool);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs one wave. The pending entries are taken as seeds, the cycles of
+     * unfiltered edges in the PFG part reachable from them are collapsed,
+     * and the condensed part is grouped into levels by a topological order.
+     * The levels are then processed one after another; the nodes of a level
+     * pull their seeds and the filtered deltas of their predecessors into
+     * their own sets in parallel. Each task only writes its own set and
+     * reads the deltas of earlier levels, and the PFG is only read on the
+     * calling thread. Objects along the edges that go against the order,
+     * which are filtered edges, are put into the work-list for the next
+     * wave, as are the constraints for the new objects, which are added
+     * on the calling thread.
+     */
+    private void runWave(ForkJoinPool pool) {
+        Map<Pointer, PointsToSet> polled = Maps.newMap();
+        pollSeeds(polled);
+        List<List<Pointer>> sccs = pointerFlowGraph.getSCCs(polled.keySet());
+        for (List<Pointer> scc : sccs) {
+            if (scc.size() > 1) {
+                collapseCycle(scc);
+            }
+        }
+        // re-key the seeds by the representatives after collapsing,
+        // and take the objects that the collapsing has sent on
+        Map<Pointer, PointsToSet> seeds = Maps.newMap();
+        polled.forEach((p, pts) -> addSeed(seeds, p, pts));
+        pollSeeds(seeds);
+        // the condensed part in topological order, preceded by the seeds
+        // outside it, e.g., field pointers of the collapsed variables
+        Set<Pointer> condensed = Sets.newSet();
+        List<Pointer> sorted = new ArrayList<>();
+        for (int i = sccs.size() - 1; i >= 0; --i) {
+            Pointer node = pointerFlowGraph.getRepresentative(sccs.get(i).get(0));
+            if (condensed.add(node)) {
+                sorted.add(node);
+            }
+        }
+        List<Pointer> nodes = new ArrayList<>();
+        seeds.keySet().stream().filter(p -> !condensed.contains(p)).forEach(nodes::add);
+        nodes.addAll(sorted);
+        Map<Pointer, Integer> order = Maps.newMap();
+        for (int i = 0; i < nodes.size(); ++i) {
+            order.put(nodes.get(i), i);
+        }
+        // the level of a node is the length of the longest path to it
+        // along the edges that follow the order
+        int[] levels = new int[nodes.size()];
+        List<List<InEdge>> inEdges = new ArrayList<>(nodes.size());
+        List<List<OutEdge>> backEdges = new ArrayList<>(nodes.size());
+        for (int i = 0; i < nodes.size(); ++i) {
+            inEdges.add(new ArrayList<>());
+            backEdges.add(new ArrayList<>());
+        }
+        List<List<Integer>> waves = new ArrayList<>();
+        for (int i = 0; i < nodes.size(); ++i) {
+            Pointer node = nodes.get(i);
+            if (levels[i] == waves.size()) {
+                waves.add(new ArrayList<>());
+            }
+            waves.get(levels[i]).add(i);
+            for (Pointer succ : pointerFlowGraph.getSuccsOf(node)) {
+                Type filter = pointerFlowGraph.getFilter(node, succ);
+                Integer j = order.get(pointerFlowGraph.getRepresentative(succ));
+                if (j == null || j < i) {
+                    backEdges.get(i).add(new OutEdge(succ, filter));
+                } else if (j > i) {
+                    inEdges.get(j).add(new InEdge(i, filter));
+                    levels[j] = Math.max(levels[j], levels[i] + 1);
+                }
+            }
+        }
+        PointsToSet[] deltas = new PointsToSet[nodes.size()];
+        List<List<WorkList.Entry>> outs = new ArrayList<>(
+                Collections.nCopies(nodes.size(), List.of()));
+        for (List<Integer> wave : waves) {
+            runInParallel(pool, wave.size(), k -> {
+                int i = wave.get(k);
+                Pointer node = nodes.get(i);
+                List<PointsToSet> incoming = new ArrayList<>();
+                PointsToSet seed = seeds.get(node);
+                if (seed != null) {
+                    incoming.add(seed);
+                }
+                for (InEdge edge : inEdges.get(i)) {
+                    PointsToSet pts = filter(deltas[edge.source()], edge.filter());
+                    if (!pts.isEmpty()) {
+                        incoming.add(pts);
                     }
-            );
+                }
+                PointsToSet delta;
+                if (incoming.isEmpty()) {
+                    delta = new PointsToSet(objIndexer);
+                } else if (incoming.size() == 1) {
+                    delta = node.getPointsToSet().addAllDiff(incoming.get(0));
+                } else {
+                    PointsToSet union = new PointsToSet(objIndexer);
+                    incoming.forEach(union::addAll);
+                    delta = node.getPointsToSet().addAllDiff(union);
+                }
+                deltas[i] = delta;
+                if (!delta.isEmpty() && !backEdges.get(i).isEmpty()) {
+                    List<WorkList.Entry> out = new ArrayList<>();
+                    for (OutEdge edge : backEdges.get(i)) {
+                        PointsToSet pts = filter(delta, edge.filter());
+                        if (!pts.isEmpty()) {
+                            out.add(new WorkList.Entry(edge.target(), pts));
+                        }
+                    }
+                    outs.set(i, out);
+                }
+            });
+        }
+        for (int i = 0; i < nodes.size(); ++i) {
+            outs.get(i).forEach(e -> workList.addEntry(e.pointer(), e.pointsToSet()));
+        }
+        for (int i = 0; i < nodes.size(); ++i) {
+            if (!deltas[i].isEmpty()) {
+                processNewObjects(nodes.get(i), deltas[i]);
+            }
+        }
+    }
+
+    /**
+     * PFG edge from the node of the given index in a wave, with
+     * the given type filter.
+     */
+    private record InEdge(int source, Type filter) {
+    }
+
+    /**
+     * Runs the task for indexes from 0 to size (exclusive) on the pool,
+     * or on the calling thread if there are only a few of them.
+     */
+    private static void runInParallel(ForkJoinPool pool, int size, IntConsumer task) {
+        if (size < PARALLEL_LEVEL_SIZE) {
+            IntStream.range(0, size).forEach(task);
+        } else {
+            pool.submit(() -> IntStream.range(0, size)
+                    .parallel().forEach(task)).join();
         }
-        return delta;
+    }
+
+    /**
+     * Moves the entries of the work-list into seeds.
+     */
+    private void pollSeeds(Map<Pointer, PointsToSet> seeds) {
+        while (!workList.isEmpty()) {
+            WorkList.Entry entry = workList.pollEntry();
+            addSeed(seeds, entry.pointer(), entry.pointsToSet());
+        }
+    }
+
+    private void addSeed(Map<Pointer, PointsToSet> seeds,
+                         Pointer pointer, PointsToSet pointsToSet) {
+        seeds.computeIfAbsent(pointerFlowGraph.getRepresentative(pointer),
+                        p -> new PointsToSet(objIndexer))
+                .addAll(pointsToSet);
     }
 
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
+     * The receivers are grouped by the callee they dispatch to, so that
+     * each callee is handled once per call site.
      *
-     * @param var the variable that holds receiver objects
-     * @param recv a new discovered object pointed by the variable.
+     * @param var   the variable that holds receiver objects
+     * @param recvs the new discovered objects pointed by the variable.
      */
-    private void processCall(Var var, Obj recv) {
+    private void processCall(Var var, PointsToSet recvs) {
         // Done - finish me
-        var.getInvokes().forEach( invoke -> {
-                    JMethod calleeMethod = resolveCallee(recv, invoke);
-                    if (calleeMethod.getIR().getThis() != null) //not static, m_this extended
-                    {
-                        VarPtr thisPtr = pointerFlowGraph.getVarPtr(calleeMethod.getIR().getThis());
-                        workList.addEntry(thisPtr, new PointsToSet(recv));
-                    }
-
-                    // expand reachable world
-                    CallKind callKind = CallGraphs.getCallKind(invoke);
-                    // l->m not in CG before, meaning we haven't expanded this method
-                    if (callGraph.addEdge(new Edge<>(callKind, invoke, calleeMethod))) {
-                        processCallRoutine(invoke, calleeMethod);
+        for (Invoke invoke : var.getInvokes()) {
+            long start = System.nanoTime();
+            Map<JMethod, PointsToSet> recvsOfCallee = Maps.newMap();
+            recvs.forEach(recv -> recvsOfCallee.computeIfAbsent(
+                            resolveCallee(recv, invoke),
+                            m -> new PointsToSet(objIndexer))
+                    .addObject(recv));
+            CallKind callKind = CallGraphs.getCallKind(invoke);
+            long time = System.nanoTime() - start;
+            int edges = 0;
+            for (Map.Entry<JMethod, PointsToSet> e : recvsOfCallee.entrySet()) {
+                JMethod calleeMethod = e.getKey();
+                addReachable(calleeMethod);
+                Var thisVar = methodVars.get(calleeMethod).thisVar();
+                if (thisVar != null) //not static, m_this extended
+                {
+                    PointsToSet thisObjs = typeFilter ?
+                            filter(e.getValue(), thisVar.getType()) : e.getValue();
+                    if (!thisObjs.isEmpty()) {
+                        workList.addEntry(pointerFlowGraph.getVarPtr(thisVar), thisObjs);
                     }
                 }
-        );
+                // expand reachable world
+                // l->m not in CG before, meaning we haven't expanded this method
+                if (callGraph.addEdge(new Edge<>(callKind, invoke, calleeMethod))) {
+                    ++edges;
+                    processCallRoutine(invoke, calleeMethod);
+                }
+            }
+            getPhase("resolve-" + callKind.name().toLowerCase()).record(time, edges);
+        }
     }
 
     /**
@@ -301,18 +718,20 @@ class Solver {
     private void processCallRoutine(Invoke invoke, JMethod calleeMethod) {
         addReachable(calleeMethod);
         //parameter passing, arg -> function param
-        List<Var> params = calleeMethod.getIR().getParams();
+        MethodVars calleeVars = methodVars.get(calleeMethod);
+        List<Var> params = calleeVars.params();
         List<Var> args = invoke.getInvokeExp().getArgs();
         assert (params.size() == args.size());
         for (int i = 0; i < params.size(); i++) {
             VarPtr paramPtr = pointerFlowGraph.getVarPtr(params.get(i));
             VarPtr argPtr = pointerFlowGraph.getVarPtr(args.get(i));
-            addPFGEdge(argPtr, paramPtr);
+            addPFGEdge(argPtr, paramPtr,
+                    typeFilter ? params.get(i).getType() : null);
         }
         // return value, function return -> result
         // Notice: sometimes there is no return value!
         if (invoke.getResult() != null) {
-            List<Var> returnVars = calleeMethod.getIR().getReturnVars();
+            List<Var> returnVars = calleeVars.returnVars();
             VarPtr resultPtr = pointerFlowGraph.getVarPtr(invoke.getResult());
             returnVars.forEach(ret -> {
 
@@ -336,7 +755,23 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * Lets the pointers with equal points-to sets share one bitmap,
+     * as many pointers, e.g., the locals of the same type, end up with
+     * identical sets.
+     */
+    private void internPointsToSets() {
+        Map<SparseBitmap, SparseBitmap> table = Maps.newMap();
+        pointerFlowGraph.getPointers().forEach(p ->
+                p.getPointsToSet().intern(table));
+    }
+
+    private CallGraphStatistics.Phase getPhase(String name) {
+        return phases.computeIfAbsent(name, CallGraphStatistics.Phase::new);
+    }
+
     CIPTAResult getResult() {
-        return new CIPTAResult(pointerFlowGraph, callGraph);
+        return new CIPTAResult(pointerFlowGraph, callGraph,
+                List.copyOf(phases.values()));
     }
 }
@@ -0,0 +1,265 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.ci;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Compressed sparse bitmap over non-negative integers.
+ * <p>
+ * Only the non-zero 64-bit words are stored, together with their word
+ * indexes in ascending order, so that the memory of a bitmap is
+ * proportional to the number of its non-zero words, and union and
+ * difference are computed word by word.
+ */
+class SparseBitmap {
+
+    private static final int[] EMPTY_KEYS = new int[0];
+
+    private static final long[] EMPTY_WORDS = new long[0];
+
+    /**
+     * Word indexes of non-zero words, in ascending order.
+     */
+    private int[] keys = EMPTY_KEYS;
+
+    private long[] words = EMPTY_WORDS;
+
+    /**
+     * Number of non-zero words.
+     */
+    private int length = 0;
+
+    /**
+     * Number of set bits.
+     */
+    private int cardinality = 0;
+
+    /**
+     * Sets the given bit.
+     *
+     * @return true if this bitmap changed as a result of the call.
+     */
+    boolean add(int bit) {
+        int key = bit >>> 6;
+        long mask = 1L << bit;
+        int i = Arrays.binarySearch(keys, 0, length, key);
+        if (i >= 0) {
+            if ((words[i] & mask) != 0) {
+                return false;
+            }
+            words[i] |= mask;
+        } else {
+            insertWord(-(i + 1), key, mask);
+        }
+        ++cardinality;
+        return true;
+    }
+
+    boolean contains(int bit) {
+        int i = Arrays.binarySearch(keys, 0, length, bit >>> 6);
+        return i >= 0 && (words[i] & (1L << bit)) != 0;
+    }
+
+    boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    int cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * @return a copy of this bitmap.
+     */
+    SparseBitmap copy() {
+        SparseBitmap copy = new SparseBitmap();
+        copy.keys = Arrays.copyOf(keys, length);
+        copy.words = Arrays.copyOf(words, length);
+        copy.length = length;
+        copy.cardinality = cardinality;
+        return copy;
+    }
+
+    /**
+     * @return a new bitmap of the bits of other bitmap that are not
+     * in this bitmap. This bitmap is not changed.
+     */
+    SparseBitmap diff(SparseBitmap other) {
+        SparseBitmap diff = new SparseBitmap();
+        int i = 0;
+        for (int j = 0; j < other.length; ++j) {
+            int key = other.keys[j];
+            while (i < length && keys[i] < key) {
+                ++i;
+            }
+            long d = i < length && keys[i] == key ?
+                    other.words[j] & ~words[i] : other.words[j];
+            if (d != 0) {
+                diff.appendWord(key, d);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Adds all bits of given bitmap, which are disjoint with the bits
+     * of this bitmap, e.g., the result of {@link #diff(SparseBitmap)}.
+     */
+    void addDisjoint(SparseBitmap diff) {
+        if (diff.isEmpty()) {
+            return;
+        }
+        boolean allKeysPresent = true;
+        int i = 0;
+        for (int j = 0; j < diff.length && allKeysPresent; ++j) {
+            while (i < length && keys[i] < diff.keys[j]) {
+                ++i;
+            }
+            allKeysPresent = i < length && keys[i] == diff.keys[j];
+        }
+        if (allKeysPresent) {
+            // update the words in place
+            i = 0;
+            for (int j = 0; j < diff.length; ++j) {
+                while (keys[i] < diff.keys[j]) {
+                    ++i;
+                }
+                words[i] |= diff.words[j];
+            }
+        } else {
+            mergeWords(diff);
+        }
+        cardinality += diff.cardinality;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SparseBitmap other)) {
+            return false;
+        }
+        return cardinality == other.cardinality
+                && Arrays.equals(keys, 0, length, other.keys, 0, other.length)
+                && Arrays.equals(words, 0, length, other.words, 0, other.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; ++i) {
+            hash = 31 * hash + keys[i];
+            hash = 31 * hash + Long.hashCode(words[i]);
+        }
+        return hash;
+    }
+
+    /**
+     * @return an iterator over the set bits in ascending order.
+     */
+    PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+
+            private int i = 0;
+
+            private long word = length > 0 ? words[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (word == 0 && i + 1 < length) {
+                    word = words[++i];
+                }
+                return word != 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int bit = (keys[i] << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                return bit;
+            }
+        };
+    }
+
+    /**
+     * Appends a word whose index is larger than all existing ones.
+     */
+    private void appendWord(int key, long word) {
+        ensureCapacity(length + 1);
+        keys[length] = key;
+        words[length] = word;
+        ++length;
+        cardinality += Long.bitCount(word);
+    }
+
+    private void insertWord(int pos, int key, long word) {
+        ensureCapacity(length + 1);
+        System.arraycopy(keys, pos, keys, pos + 1, length - pos);
+        System.arraycopy(words, pos, words, pos + 1, length - pos);
+        keys[pos] = key;
+        words[pos] = word;
+        ++length;
+    }
+
+    /**
+     * Merges the words of other bitmap, which are disjoint with the words
+     * of this bitmap, into this bitmap. The cardinality is not updated.
+     */
+    private void mergeWords(SparseBitmap other) {
+        int n = length + other.length;
+        int[] newKeys = new int[n];
+        long[] newWords = new long[n];
+        int i = 0, j = 0, k = 0;
+        while (i < length || j < other.length) {
+            if (j == other.length
+                    || (i < length && keys[i] < other.keys[j])) {
+                newKeys[k] = keys[i];
+                newWords[k++] = words[i++];
+            } else if (i == length || other.keys[j] < keys[i]) {
+                newKeys[k] = other.keys[j];
+                newWords[k++] = other.words[j++];
+            } else {
+                newKeys[k] = keys[i];
+                newWords[k++] = words[i++] | other.words[j++];
+            }
+        }
+        keys = newKeys;
+        words = newWords;
+        length = k;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length * 2);
+            keys = Arrays.copyOf(keys, Math.max(newCapacity, 2));
+            words = Arrays.copyOf(words, Math.max(newCapacity, 2));
+        }
+    }
+}
@@ -31,7 +31,8 @@ class VarPtr extends Pointer {
 
     private final Var var;
 
-    VarPtr(Var var) {
+    VarPtr(Var var, ObjIndexer objIndexer) {
+        super(objIndexer);
         this.var = var;
     }
 
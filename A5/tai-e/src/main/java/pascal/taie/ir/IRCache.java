@@ -0,0 +1,285 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.ir;
+
+import pascal.taie.World;
+import pascal.taie.language.classes.JMethod;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the IR of methods which are built on first use, when the number
+ * of IRs kept in memory is bounded by {@link #setCapacity(int)}.
+ * <p>
+ * When the cache is full, the least recently used IR is evicted together
+ * with the analysis results (e.g., CFGs) stored in it. An evicted IR that
+ * is still reachable from elsewhere, e.g., from a CFG kept by an ICFG,
+ * is returned as it is on next use; otherwise it is rebuilt
+ * (deterministically, from the same method source), and the results
+ * it held are rebuilt on it by the rebuilder given to
+ * {@link #setResultRebuilder(BiConsumer)}.
+ * <p>
+ * As a rebuilt IR contains new {@link pascal.taie.ir.stmt.Stmt} and
+ * {@link pascal.taie.ir.exp.Var} objects, analyses that retain IR
+ * elements across evictions should refer to them through their containing
+ * methods and indexes, e.g., {@link IR#getStmt(int)}, or update them by
+ * {@link #addRebuildListener(Object, BiConsumer)}.
+ * <p>
+ * By default, the cache is unbounded, and {@link JMethod} keeps its IR
+ * by itself as before, without going through this cache.
+ */
+public final class IRCache {
+
+    /**
+     * Capacity for unbounded cache.
+     */
+    public static final int UNBOUNDED = -1;
+
+    private static volatile int capacity = UNBOUNDED;
+
+    /**
+     * IRs kept by the cache, in access order.
+     */
+    private static final Map<JMethod, IR> irs = new LinkedHashMap<>(1024, 0.75f, true);
+
+    /**
+     * IRs that have been evicted, which are reclaimed once nothing
+     * else refers to them.
+     */
+    private static final Map<JMethod, EvictedIR> evicted = new HashMap<>();
+
+    private static final List<RebuildListener<?>> rebuildListeners = new ArrayList<>();
+
+    private static BiConsumer<IR, Set<String>> resultRebuilder = (ir, ids) -> {
+    };
+
+    private static long builds = 0;
+
+    private static long evictions = 0;
+
+    static {
+        World.registerResetCallback(IRCache::clear);
+    }
+
+    private IRCache() {
+    }
+
+    /**
+     * Sets the maximum number of IRs kept by the cache. It should be set
+     * before the IRs are built, as the IRs built when the cache is
+     * unbounded are kept by their methods.
+     *
+     * @param capacity the capacity, or {@link #UNBOUNDED}
+     */
+    public static synchronized void setCapacity(int capacity) {
+        if (capacity != UNBOUNDED && capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "Capacity of IR cache should be positive, given: " + capacity);
+        }
+        IRCache.capacity = capacity;
+        evict();
+    }
+
+    public static int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return true if the number of IRs kept by the cache is bounded.
+     */
+    public static boolean isBounded() {
+        return capacity != UNBOUNDED;
+    }
+
+    /**
+     * Sets the function which stores the results with given IDs
+     * into a rebuilt IR. It is called before the IR is returned by
+     * {@link #get(JMethod, Function)}.
+     */
+    public static synchronized void setResultRebuilder(
+            BiConsumer<IR, Set<String>> resultRebuilder) {
+        IRCache.resultRebuilder = resultRebuilder;
+    }
+
+    /**
+     * Adds a listener which is called with its owner and the new IR
+     * whenever an evicted IR is rebuilt. The cache does not keep the
+     * owner alive, and the listener is dropped once the owner is reclaimed
+     * or {@link World} is reset. Thus, the listener should not refer to
+     * the owner by itself, e.g., it may be {@code Owner::method}.
+     */
+    public static synchronized <T> void addRebuildListener(
+            T owner, BiConsumer<? super T, IR> listener) {
+        rebuildListeners.removeIf(RebuildListener::isCleared);
+        rebuildListeners.add(new RebuildListener<>(owner, listener));
+    }
+
+    /**
+     * @return the IR of given method. If the IR is not in the cache,
+     * then builds it by {@code builder} and puts it into the cache.
+     * The IR is built without holding the lock of the cache.
+     */
+    public static IR get(JMethod method, Function<JMethod, IR> builder) {
+        Set<String> ids;
+        synchronized (IRCache.class) {
+            IR ir = lookup(method);
+            if (ir != null) {
+                return ir;
+            }
+            EvictedIR old = evicted.get(method);
+            ids = old != null ? old.resultIds : Set.of();
+        }
+        IR ir = builder.apply(method);
+        if (!ids.isEmpty()) {
+            resultRebuilder.accept(ir, ids);
+        }
+        List<RebuildListener<?>> listeners;
+        synchronized (IRCache.class) {
+            IR other = lookup(method);
+            if (other != null) {
+                // built by another thread in the meantime
+                return other;
+            }
+            ++builds;
+            irs.put(method, ir);
+            listeners = evicted.remove(method) != null ?
+                    List.copyOf(rebuildListeners) : List.of();
+            evict();
+        }
+        listeners.forEach(listener -> listener.accept(ir));
+        return ir;
+    }
+
+    /**
+     * @return the IR of given method if it is in the cache, or it has
+     * been evicted but not reclaimed yet, in which case it is put back.
+     */
+    private static IR lookup(JMethod method) {
+        IR ir = irs.get(method);
+        if (ir == null) {
+            EvictedIR old = evicted.get(method);
+            if (old != null && (ir = old.get()) != null) {
+                evicted.remove(method);
+                irs.put(method, ir);
+                evict();
+            }
+        }
+        return ir;
+    }
+
+    /**
+     * Evicts the least recently used IRs until the cache is within its
+     * capacity.
+     */
+    private static void evict() {
+        if (!isBounded()) {
+            return;
+        }
+        var it = irs.entrySet().iterator();
+        while (irs.size() > capacity && it.hasNext()) {
+            Map.Entry<JMethod, IR> e = it.next();
+            it.remove();
+            evicted.put(e.getKey(), new EvictedIR(e.getValue()));
+            ++evictions;
+        }
+    }
+
+    /**
+     * @return true if the IR of given method is currently in the cache.
+     */
+    public static synchronized boolean contains(JMethod method) {
+        return irs.containsKey(method);
+    }
+
+    /**
+     * @return the number of IRs that have been built (including rebuilds).
+     */
+    public static synchronized long getNumberOfBuilds() {
+        return builds;
+    }
+
+    /**
+     * @return the number of IRs that have been evicted.
+     */
+    public static synchronized long getNumberOfEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Removes all IRs, listeners and the result rebuilder from the cache.
+     */
+    public static synchronized void clear() {
+        irs.clear();
+        evicted.clear();
+        rebuildListeners.clear();
+        resultRebuilder = (ir, ids) -> {
+        };
+        builds = 0;
+        evictions = 0;
+    }
+
+    private static final class EvictedIR extends WeakReference<IR> {
+
+        /**
+         * IDs of the results held by the IR when it was evicted.
+         */
+        private final Set<String> resultIds;
+
+        private EvictedIR(IR ir) {
+            super(ir);
+            this.resultIds = new LinkedHashSet<>(ir.getKeys());
+        }
+    }
+
+    private static final class RebuildListener<T> {
+
+        private final WeakReference<T> owner;
+
+        private final BiConsumer<? super T, IR> listener;
+
+        private RebuildListener(T owner, BiConsumer<? super T, IR> listener) {
+            this.owner = new WeakReference<>(owner);
+            this.listener = listener;
+        }
+
+        private boolean isCleared() {
+            return owner.get() == null;
+        }
+
+        private void accept(IR ir) {
+            T o = owner.get();
+            if (o != null) {
+                listener.accept(o, ir);
+            }
+        }
+    }
+}
@@ -22,8 +22,27 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.pta.ci.CIPTA;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class CIPTATest {
 
@@ -78,4 +97,89 @@ public class CIPTATest {
     public void testMergeParam() {
         Tests.testCIPTA(DIR, "MergeParam");
     }
+
+    @Test
+    public void testThreads() {
+        // waves must compute the same points-to sets as the standard mode
+        for (String main : List.of("Example", "Array", "Assign", "Assign2",
+                "StoreLoad", "Call", "InstanceField", "StaticField",
+                "StaticCall", "MergeParam")) {
+            Tests.testCIPTA(DIR, main, "threads:4");
+        }
+    }
+
+    @Test
+    public void testAllocationType() {
+        Tests.testCIPTA(DIR, "AllocationType", "heap-model:allocation-type");
+        // merging no type of the program must give the default results
+        Tests.testCIPTA(DIR, "StoreLoad", "heap-model:allocation-type",
+                "merge-packages:java");
+    }
+
+    @Test
+    public void testBinaryFile() throws IOException {
+        for (String main : List.of("StoreLoad", "InstanceField", "StaticField")) {
+            File binaryFile = File.createTempFile(main + "-cipta", ".bin");
+            binaryFile.deleteOnExit();
+            Tests.testCIPTA(DIR, main, "binary-file:" + binaryFile);
+            // the loaded result answers as the result it was exported from
+            PointerAnalysisResult pta = World.get().getResult(CIPTA.ID);
+            PointerAnalysisResult loaded = PointerAnalysisResultIO.read(binaryFile.toPath());
+            Assert.assertEquals(pta.getVars().size(), loaded.getVars().size());
+            for (Var var : pta.getVars()) {
+                Assert.assertEquals(var.toString(), toStrings(pta.getPointsToSet(var)),
+                        toStrings(loaded.getPointsToSet(var)));
+                for (LoadField load : var.getLoadFields()) {
+                    JField field = load.getFieldRef().resolve();
+                    Assert.assertEquals(var + "." + field.getName(),
+                            toStrings(pta.getPointsToSet(var, field)),
+                            toStrings(loaded.getPointsToSet(var, field)));
+                }
+            }
+            Assert.assertEquals(pta.getCallGraph().getNumberOfEdges(),
+                    loaded.getCallGraph().getNumberOfEdges());
+        }
+    }
+
+    private static Set<String> toStrings(Set<Obj> objs) {
+        Set<String> strings = new HashSet<>();
+        objs.forEach(obj -> strings.add(obj.toString()));
+        return strings;
+    }
+
+    @Test
+    public void testTypeFilter() {
+        // only the objects of type A flow through the cast
+        Tests.testCIPTA(DIR, "TypeFilter", "type-filter:true");
+        // without the filter, all objects flow through the cast
+        Tests.testCIPTA(DIR, "Cast");
+        // programs without casts keep the default results
+        for (String main : List.of("Example", "Array", "Assign", "Assign2",
+                "StoreLoad", "Call", "InstanceField", "StaticField",
+                "StaticCall", "MergeParam")) {
+            Tests.testCIPTA(DIR, main, "type-filter:true");
+        }
+    }
+
+    @Test
+    public void testBoundedIRCache() {
+        // IRs are evicted and rebuilt while solving,
+        // which should still give the expected results
+        for (String main : List.of("Call", "InstanceField", "StaticField")) {
+            Tests.testCIPTA(DIR, main, "ir-cache-size:1");
+        }
+    }
+
+    @Test
+    public void testCallGraphStats() throws IOException {
+        File statsFile = File.createTempFile("Example-cg-stats", ".json");
+        statsFile.deleteOnExit();
+        Tests.testCIPTA(DIR, "Example", "-a",
+                "cg=algorithm:cipta;stats:true;stats-file:" + statsFile);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        JsonNode stats = new ObjectMapper().readTree(statsFile);
+        Assert.assertEquals(callGraph.getNumberOfMethods(), stats.get("methods").asInt());
+        Assert.assertEquals(callGraph.getNumberOfEdges(), stats.get("edges").asInt());
+        Assert.assertFalse(stats.get("phases").isEmpty());
+    }
 }
@@ -0,0 +1,19 @@
+public class TypeFilter {
+
+    public static void main(String[] args) {
+        Box box = new Box();
+        box.f = new A();
+        box.f = new B();
+        A a = (A) box.f;
+    }
+}
+
+class Box {
+    Object f;
+}
+
+class A {
+}
+
+class B {
+}
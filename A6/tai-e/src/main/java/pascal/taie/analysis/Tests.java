@@ -27,6 +27,7 @@ import pascal.taie.analysis.misc.ClassDumper;
 
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -70,9 +71,11 @@ public final class Tests {
         String file = getExpectedFile(classPath, main, id);
         ptaArgs.add("file:" + file);
         boolean specifyOnlyApp = false;
-        for (String opt : opts) {
-            ptaArgs.add(opt);
-            if (opt.contains("only-app")) {
+        // the options before "-a" are given to analysis *id*
+        int i = 0;
+        for (; i < opts.length && !opts[i].equals("-a"); ++i) {
+            ptaArgs.add(opts[i]);
+            if (opts[i].contains("only-app")) {
                 specifyOnlyApp = true;
             }
         }
@@ -81,6 +84,8 @@ public final class Tests {
             ptaArgs.add("only-app:true");
         }
         Collections.addAll(args, "-a", id + "=" + String.join(";", ptaArgs));
+        // the rest set up other analyses, e.g., "-a", "cg=..."
+        args.addAll(Arrays.asList(opts).subList(i, opts.length));
         Main.main(args.toArray(new String[0]));
     }
 
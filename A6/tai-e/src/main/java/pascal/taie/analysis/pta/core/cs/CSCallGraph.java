@@ -28,13 +28,17 @@ import pascal.taie.analysis.pta.core.cs.context.Context;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSManager;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.Sets;
 import pascal.taie.util.collection.Views;
 
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 
@@ -45,6 +49,13 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
 
     private final CSManager csManager;
 
+    /**
+     * Call sites in each method, taken from its IR when the call sites
+     * are first asked for, so that all contexts of the method share
+     * the same call sites even if the IR is rebuilt by {@link IRCache}.
+     */
+    private final Map<JMethod, List<Invoke>> callSitesIn = Maps.newMap();
+
     public CSCallGraph(CSManager csManager) {
         this.csManager = csManager;
     }
@@ -108,11 +119,12 @@ public class CSCallGraph extends AbstractCallGraph<CSCallSite, CSMethod> {
         JMethod method = csMethod.getMethod();
         Context context = csMethod.getContext();
         Set<CSCallSite> callSites = Sets.newHybridOrderedSet();
-        for (Stmt s : method.getIR()) {
-            if (s instanceof Invoke) {
-                CSCallSite csCallSite = csManager.getCSCallSite(context, (Invoke) s);
-                callSites.add(csCallSite);
-            }
+        for (Invoke callSite : callSitesIn.computeIfAbsent(method, m ->
+                m.getIR().stmts()
+                        .filter(s -> s instanceof Invoke)
+                        .map(s -> (Invoke) s)
+                        .toList())) {
+            callSites.add(csManager.getCSCallSite(context, callSite));
         }
         return Collections.unmodifiableSet(callSites);
     }
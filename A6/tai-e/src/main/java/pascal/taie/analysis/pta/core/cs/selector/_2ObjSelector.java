@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -35,9 +35,11 @@ import pascal.taie.language.classes.JMethod;
  */
 public class _2ObjSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory = new TrieContext.Factory();
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -52,14 +54,7 @@ public class _2ObjSelector implements ContextSelector {
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // Done - finish me
         // Notice: call's context may be different from object's context - processcall(c:x, c':o)
-        Context callerContext = recv.getContext();
-        int len = callerContext.getLength();
-        Context calleeContext;
-        if(len >= 1)
-            calleeContext = ListContext.make(callerContext.getElementAt(len-1), recv.getObject());
-        else
-            calleeContext = ListContext.make(recv.getObject());
-        return calleeContext;
+        return factory.append(recv.getContext(), recv.getObject(), 2);
     }
 
     @Override
@@ -67,13 +62,6 @@ public class _2ObjSelector implements ContextSelector {
         // Done - finish me
         // it is used for x=new T(), so we just use T's context
         // Only for call we need to recalculate context
-        Context callerContext = method.getContext();
-        int len = callerContext.getLength();
-        Context calleeContext;
-        if(len >= 1)
-            calleeContext = ListContext.make(callerContext.getElementAt(len-1));
-        else
-            calleeContext = ListContext.make();
-        return calleeContext;
+        return factory.truncate(method.getContext(), 1);
     }
 }
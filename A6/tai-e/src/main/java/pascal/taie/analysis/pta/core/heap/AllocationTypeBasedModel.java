@@ -0,0 +1,93 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.heap;
+
+import pascal.taie.config.AnalysisOptions;
+import pascal.taie.ir.stmt.New;
+import pascal.taie.language.type.Type;
+import pascal.taie.util.collection.Maps;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap model that merges the allocation sites of the same type into one
+ * object, which trades precision for a much smaller heap abstraction.
+ * <p>
+ * If option "merge-packages" gives a list of packages, only the types
+ * in these packages, their subpackages and arrays of them are merged, and the other
+ * allocation sites keep their own objects as in
+ * {@link AllocationSiteBasedModel}; otherwise, all types are merged.
+ * <p>
+ * Unlike {@link #getMergedObj(New)}, this model does not create an object
+ * for each merged allocation site, so a merged object represents no
+ * site: it has no container method and its container type is its own type.
+ */
+public class AllocationTypeBasedModel extends AbstractHeapModel {
+
+    /**
+     * Name prefixes of the merged types, or null if all types are merged.
+     */
+    private final List<String> prefixes;
+
+    /**
+     * Merged object of each type.
+     */
+    private final Map<Type, MergedObj> typeObjs = Maps.newMap();
+
+    public AllocationTypeBasedModel(AnalysisOptions options) {
+        super(options);
+        Object packages = options.get("merge-packages");
+        if (packages instanceof List<?> list) {
+            prefixes = list.stream().map(p -> p + ".").toList();
+        } else if (packages != null) {
+            prefixes = List.of(packages + ".");
+        } else {
+            prefixes = null;
+        }
+    }
+
+    @Override
+    protected Obj doGetObj(New alloc) {
+        return isMerged(alloc.getRValue().getType()) ?
+                getTypeObj(alloc.getRValue().getType()) : getNewObj(alloc);
+    }
+
+    private MergedObj getTypeObj(Type type) {
+        return typeObjs.computeIfAbsent(type,
+                t -> new MergedObj(t, "<Merged " + t + ">"));
+    }
+
+    private boolean isMerged(Type type) {
+        if (prefixes == null) {
+            return true;
+        }
+        String name = type.getName();
+        for (String prefix : prefixes) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -27,10 +27,13 @@ import pascal.taie.analysis.pta.PointerAnalysisResult;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
+import pascal.taie.analysis.pta.core.heap.AllocationTypeBasedModel;
+import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.plugin.ResultProcessor;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.config.ConfigException;
+import pascal.taie.ir.IRCache;
 import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
@@ -50,8 +53,11 @@ public class CSPTA extends ProgramAnalysis {
     @Override
     public PointerAnalysisResult analyze() {
         AnalysisOptions options = getOptions();
+        Object irCacheSize = options.get("ir-cache-size");
+        IRCache.setCapacity(irCacheSize != null ?
+                (Integer) irCacheSize : IRCache.UNBOUNDED);
         Solver solver = new Solver(options,
-                new AllocationSiteBasedModel(options),
+                getHeapModel(options),
                 getContextSelector(options.getString("cs")));
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
@@ -59,6 +65,17 @@ public class CSPTA extends ProgramAnalysis {
         return result;
     }
 
+    private static HeapModel getHeapModel(AnalysisOptions options) {
+        String heapModel = options.getString("heap-model");
+        if (heapModel == null || heapModel.equals("allocation-site")) {
+            return new AllocationSiteBasedModel(options);
+        } else if (heapModel.equals("allocation-type")) {
+            return new AllocationTypeBasedModel(options);
+        } else {
+            throw new ConfigException("Unexpected heap model: " + heapModel);
+        }
+    }
+
     private static ContextSelector getContextSelector(String cs) {
         if (cs.equals("ci")) {
             return new CISelector();
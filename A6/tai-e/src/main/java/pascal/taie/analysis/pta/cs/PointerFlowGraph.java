@@ -23,9 +23,19 @@
 package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
+import pascal.taie.language.type.Type;
 import pascal.taie.util.collection.Maps;
 import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+import pascal.taie.util.collection.TwoKeyMap;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -39,19 +49,266 @@ class PointerFlowGraph {
     private final MultiMap<Pointer, Pointer> successors = Maps.newMultiMap();
 
     /**
-     * Adds an edge (source -> target) to this PFG.
+     * Type filters of the filtered edges, keyed by the sources and targets
+     * stored in {@link #successors}. Objects flow along a filtered edge
+     * only if their types are subtypes of the filter.
+     */
+    private final TwoKeyMap<Pointer, Pointer, Type> filters = Maps.newTwoKeyMap();
+
+    /**
+     * Map from a collapsed pointer to the pointer it was merged into.
+     * Representatives of the pointer classes are absent from this map.
+     */
+    private final Map<Pointer, Pointer> parents = Maps.newMap();
+
+    /**
+     * Map from a representative to all pointers of its collapsed cycle.
+     */
+    private final MultiMap<Pointer, Pointer> members = Maps.newMultiMap();
+
+    /**
+     * Edges that have already triggered a cycle search.
+     */
+    private final MultiMap<Pointer, Pointer> checkedEdges = Maps.newMultiMap();
+
+    /**
+     * Adds an edge (source -> target) to this PFG. The edge is attached to
+     * the representatives of the two pointers, so an edge inside a collapsed
+     * cycle is dropped.
      *
      * @return true if this PFG changed as a result of the call,
      * otherwise false.
      */
     boolean addEdge(Pointer source, Pointer target) {
-        return successors.put(source, target);
+        return addEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge (source -> target) with the given type filter to this
+     * PFG, or an unfiltered edge if the filter is null. An edge added
+     * with different filters is unfiltered.
+     *
+     * @return true if this PFG changed as a result of the call,
+     * otherwise false.
+     */
+    boolean addEdge(Pointer source, Pointer target, Type filter) {
+        Pointer s = getRepresentative(source);
+        Pointer t = getRepresentative(target);
+        return s != t && putEdge(s, t, filter);
+    }
+
+    private boolean putEdge(Pointer source, Pointer target, Type filter) {
+        if (successors.put(source, target)) {
+            if (filter != null) {
+                filters.put(source, target, filter);
+            }
+            return true;
+        }
+        Type oldFilter = filters.get(source, target);
+        if (oldFilter != null && !oldFilter.equals(filter)) {
+            filters.remove(source, target);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the type filter of the edge from the given pointer to
+     * its successor, or null if the edge is unfiltered.
+     */
+    Type getFilter(Pointer pointer, Pointer succ) {
+        return filters.get(getRepresentative(pointer), succ);
     }
 
     /**
      * @return successors of given pointer in the PFG.
      */
     Set<Pointer> getSuccsOf(Pointer pointer) {
-        return successors.get(pointer);
+        return successors.get(getRepresentative(pointer));
+    }
+
+    /**
+     * @return the representative of the collapsed cycle containing
+     * the given pointer, or the pointer itself if it is not collapsed.
+     */
+    Pointer getRepresentative(Pointer pointer) {
+        Pointer rep = pointer;
+        Pointer parent;
+        while ((parent = parents.get(rep)) != null) {
+            rep = parent;
+        }
+        // path compression
+        while (pointer != rep) {
+            Pointer next = parents.put(pointer, rep);
+            pointer = next;
+        }
+        return rep;
+    }
+
+    /**
+     * @return all pointers that share the points-to set of the given pointer.
+     */
+    Set<Pointer> getMembersOf(Pointer pointer) {
+        Pointer rep = getRepresentative(pointer);
+        Set<Pointer> cycle = members.get(rep);
+        return cycle.isEmpty() ? Set.of(rep) : cycle;
+    }
+
+    /**
+     * Merges a pointer that has neither objects nor edges yet into
+     * the class of target, e.g., for pointers found equivalent before
+     * solving. The pointer then shares the points-to set of the class.
+     *
+     * @return true if the pointer has been merged, otherwise false.
+     */
+    boolean merge(Pointer pointer, Pointer target) {
+        Pointer rep = getRepresentative(target);
+        if (parents.containsKey(pointer) || pointer == rep
+                || !pointer.getPointsToSet().isEmpty()
+                || !successors.get(pointer).isEmpty()
+                || !members.get(pointer).isEmpty()) {
+            return false;
+        }
+        if (members.get(rep).isEmpty()) {
+            members.put(rep, rep);
+        }
+        members.put(rep, pointer);
+        parents.put(pointer, rep);
+        pointer.setPointsToSet(rep.getPointsToSet());
+        return true;
+    }
+
+    /**
+     * Looks for a cycle of unfiltered edges through edge (source -> target). Each edge is
+     * searched at most once, so the caller may invoke this whenever the
+     * points-to sets of the two pointers look equal.
+     *
+     * @return representatives of the pointers on the cycle, or an empty
+     * list if the edge is not on a cycle.
+     */
+    List<Pointer> findCycle(Pointer source, Pointer target) {
+        Pointer s = getRepresentative(source);
+        Pointer t = getRepresentative(target);
+        if (s == t || !checkedEdges.put(s, t)) {
+            return List.of();
+        }
+        List<Pointer> scc = findSCC(t);
+        return scc.contains(s) ? scc : List.of();
+    }
+
+    /**
+     * Computes the strongly-connected component containing root.
+     */
+    private List<Pointer> findSCC(Pointer root) {
+        List<List<Pointer>> sccs = getSCCs(List.of(root), false);
+        return sccs.get(sccs.size() - 1);
+    }
+
+    /**
+     * Computes the strongly-connected components of the part of this PFG
+     * reachable from the given pointers with an iterative Tarjan's
+     * algorithm over the representatives.
+     *
+     * @param includeFiltered whether to follow filtered edges. Only the
+     *                        cycles of unfiltered edges can be collapsed.
+     * @return the components in reverse topological order.
+     */
+    List<List<Pointer>> getSCCs(Collection<Pointer> roots, boolean includeFiltered) {
+        List<List<Pointer>> sccs = new ArrayList<>();
+        Map<Pointer, Integer> indexes = Maps.newMap();
+        Map<Pointer, Integer> lowLinks = Maps.newMap();
+        Deque<Pointer> stack = new ArrayDeque<>();
+        Set<Pointer> onStack = Sets.newSet();
+        Deque<Pointer> nodes = new ArrayDeque<>();
+        Deque<Iterator<Pointer>> iterators = new ArrayDeque<>();
+        for (Pointer pointer : roots) {
+            Pointer root = getRepresentative(pointer);
+            if (indexes.containsKey(root)) {
+                continue;
+            }
+            indexes.put(root, indexes.size());
+            lowLinks.put(root, indexes.get(root));
+            stack.push(root);
+            onStack.add(root);
+            nodes.push(root);
+            iterators.push(successors.get(root).iterator());
+            while (!nodes.isEmpty()) {
+                Pointer v = nodes.peek();
+                Iterator<Pointer> it = iterators.peek();
+                if (it.hasNext()) {
+                    Pointer succ = it.next();
+                    if (!includeFiltered && filters.get(v, succ) != null) {
+                        continue;
+                    }
+                    Pointer w = getRepresentative(succ);
+                    if (!indexes.containsKey(w)) {
+                        int index = indexes.size();
+                        indexes.put(w, index);
+                        lowLinks.put(w, index);
+                        stack.push(w);
+                        onStack.add(w);
+                        nodes.push(w);
+                        iterators.push(successors.get(w).iterator());
+                    } else if (onStack.contains(w)) {
+                        lowLinks.put(v, Math.min(lowLinks.get(v), indexes.get(w)));
+                    }
+                } else {
+                    nodes.pop();
+                    iterators.pop();
+                    if (!nodes.isEmpty()) {
+                        Pointer u = nodes.peek();
+                        lowLinks.put(u, Math.min(lowLinks.get(u), lowLinks.get(v)));
+                    }
+                    if (lowLinks.get(v).equals(indexes.get(v))) {
+                        List<Pointer> scc = new ArrayList<>();
+                        Pointer w;
+                        do {
+                            w = stack.pop();
+                            onStack.remove(w);
+                            scc.add(w);
+                        } while (w != v);
+                        sccs.add(scc);
+                    }
+                }
+            }
+        }
+        return sccs;
+    }
+
+    /**
+     * Merges the pointers on a cycle, e.g., found by {@link #findCycle},
+     * into one representative which takes over their outgoing edges.
+     * The caller is responsible for unifying their points-to sets.
+     *
+     * @return the representative of the merged pointers.
+     */
+    Pointer collapse(List<Pointer> cycle) {
+        Pointer rep = cycle.get(0);
+        Set<Pointer> merged = Sets.newSet();
+        merged.addAll(getMembersOf(rep));
+        List<Pointer> succs = new ArrayList<>();
+        List<Type> succFilters = new ArrayList<>();
+        for (Pointer p : cycle) {
+            if (p != rep) {
+                merged.addAll(getMembersOf(p));
+                members.removeAll(p);
+                parents.put(p, rep);
+            }
+            for (Pointer succ : successors.get(p)) {
+                succs.add(succ);
+                succFilters.add(filters.get(p, succ));
+            }
+            successors.removeAll(p);
+            filters.removeAll(p);
+        }
+        for (int i = 0; i < succs.size(); ++i) {
+            Pointer t = getRepresentative(succs.get(i));
+            if (t != rep) {
+                putEdge(rep, t, succFilters.get(i));
+            }
+        }
+        members.removeAll(rep);
+        members.putAll(rep, merged);
+        return rep;
     }
 }
@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphStatistics;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
@@ -47,22 +48,36 @@ import pascal.taie.analysis.pta.core.heap.HeapModel;
 import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.analysis.pta.pts.PointsToSet;
 import pascal.taie.analysis.pta.pts.PointsToSetFactory;
+import pascal.taie.analysis.pta.pts.PointsToSetInterner;
 import pascal.taie.config.AnalysisOptions;
 import pascal.taie.ir.IR;
+import pascal.taie.ir.IRCache;
 import pascal.taie.ir.exp.InvokeExp;
 import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Cast;
 import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.FieldStmt;
 import pascal.taie.ir.stmt.Invoke;
 import pascal.taie.ir.stmt.LoadArray;
 import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.New;
+import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.ir.stmt.StmtVisitor;
 import pascal.taie.ir.stmt.StoreArray;
 import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import pascal.taie.language.type.TypeSystem;
+import pascal.taie.util.collection.Maps;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 class Solver {
 
@@ -74,6 +89,21 @@ class Solver {
 
     private final ContextSelector contextSelector;
 
+    /**
+     * Whether to filter the objects flowing along cast, parameter and
+     * receiver edges by the cast types, declared parameter types and
+     * the types of this variables. If it is off, these edges pass all
+     * objects, e.g., x = (T) y passes every object of y to x.
+     */
+    private final boolean typeFilter;
+
+    /**
+     * Cache of subtype checks, i.e., type filter -> object type -> result.
+     */
+    private final Map<Type, Map<Type, Boolean>> subtypes = Maps.newMap();
+
+    private TypeSystem typeSystem;
+
     private CSManager csManager;
 
     private CSCallGraph callGraph;
@@ -84,16 +114,34 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Parts of the IRs of reachable methods that are used by the solver,
+     * taken from the IRs when the methods become reachable in their first
+     * contexts. They are kept here instead of being looked up from the
+     * IRs, which may be evicted from {@link IRCache} and rebuilt with new
+     * variables and statements, while the other contexts of the methods
+     * must use the same ones.
+     */
+    private final Map<JMethod, MethodBody> bodies = Maps.newMap();
+
+    /**
+     * Time and call edges of each phase of the solver,
+     * which are reported by call graph statistics.
+     */
+    private final Map<String, CallGraphStatistics.Phase> phases = new LinkedHashMap<>();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
         this.heapModel = heapModel;
         this.contextSelector = contextSelector;
+        this.typeFilter = options.getBooleanOrDefault("type-filter", false);
     }
 
     void solve() {
         initialize();
         analyze();
+        internPointsToSets();
     }
 
     private void initialize() {
@@ -101,6 +149,7 @@ class Solver {
         callGraph = new CSCallGraph(csManager);
         pointerFlowGraph = new PointerFlowGraph();
         workList = new WorkList();
+        typeSystem = World.get().getTypeSystem();
         // process program entry, i.e., main method
         Context defContext = contextSelector.getEmptyContext();
         JMethod main = World.get().getMainMethod();
@@ -115,11 +164,39 @@ class Solver {
     private void addReachable(CSMethod csMethod) {
         // Done - finish me
         // Basically we construct the PFG that doesn't need object in this method
-        if (callGraph.addReachableMethod(csMethod)) {
-            IR methodBody = csMethod.getMethod().getIR();
-            methodBody.getStmts().forEach(stmt -> {
-                stmt.accept(new StmtProcessor(csMethod));
-            });
+        long start = System.nanoTime();
+        boolean isNew = callGraph.addReachableMethod(csMethod);
+        getPhase("reachable-methods").record(System.nanoTime() - start, 0);
+        if (isNew) {
+            // the IR has just been used by the call graph, so it is
+            // the same one as the call sites recorded there
+            MethodBody methodBody = bodies.computeIfAbsent(
+                    csMethod.getMethod(), m -> new MethodBody(m.getIR()));
+            StmtProcessor stmtProcessor = new StmtProcessor(csMethod);
+            methodBody.stmts().forEach(stmt -> stmt.accept(stmtProcessor));
+        }
+    }
+
+    /**
+     * This variable, parameters, return variables and the statements
+     * processed by {@link StmtProcessor} of a method. They are copied so
+     * that they do not keep the IR alive.
+     */
+    private record MethodBody(@Nullable Var thisVar, List<Var> params,
+                              List<Var> returnVars, List<Stmt> stmts) {
+
+        private MethodBody(IR ir) {
+            this(ir.getThis(), List.copyOf(ir.getParams()),
+                    List.copyOf(ir.getReturnVars()),
+                    ir.stmts().filter(MethodBody::isProcessed).toList());
+        }
+
+        private static boolean isProcessed(Stmt stmt) {
+            return stmt instanceof New
+                    || stmt instanceof Copy
+                    || stmt instanceof Cast
+                    || stmt instanceof FieldStmt<?, ?> fieldStmt && fieldStmt.isStatic()
+                    || stmt instanceof Invoke invoke && invoke.isStatic();
         }
     }
 
@@ -161,6 +238,16 @@ class Solver {
             return null;
         }
 
+        @Override
+        // x = (T) y;
+        public Void visit(Cast stmt) {
+            CSVar lPtr = csManager.getCSVar(context, stmt.getLValue());
+            CSVar rPtr = csManager.getCSVar(context, stmt.getRValue().getValue());
+            // y->x, only for objects of type T if type filter is on
+            addPFGEdge(rPtr, lPtr, typeFilter ? stmt.getRValue().getCastType() : null);
+            return null;
+        }
+
         @Override
         // static store T.f = y;
         public Void visit(StoreField stmt) {
@@ -191,11 +278,18 @@ class Solver {
         // static call y = T.m(x1, ..., xn);
         public Void visit(Invoke stmt) {
             if (stmt.isStatic()) {
+                long start = System.nanoTime();
                 //no receiver object, we only need method here
                 JMethod method = resolveCallee(null, stmt);
                 // Done - finish static call
-                Context calleeContext = contextSelector.selectContext(csManager.getCSCallSite(context, stmt), method);
-                processCallRoutine(csManager.getCSCallSite(context, stmt), csManager.getCSMethod(calleeContext, method));
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, method);
+                CSMethod csCalleeMethod = csManager.getCSMethod(calleeContext, method);
+                boolean isNewEdge = callGraph.addEdge(
+                        new Edge<>(CallKind.STATIC, csCallSite, csCalleeMethod));
+                getPhase("resolve-static").record(System.nanoTime() - start,
+                        isNewEdge ? 1 : 0);
+                processCallRoutine(csCallSite, csCalleeMethod);
             }
             return null;
         }
@@ -206,13 +300,45 @@ class Solver {
      * Adds an edge "source -> target" to the PFG.
      */
     private void addPFGEdge(Pointer source, Pointer target) {
+        addPFGEdge(source, target, null);
+    }
+
+    /**
+     * Adds an edge "source -> target" with the given type filter,
+     * which may be null, to the PFG.
+     */
+    private void addPFGEdge(Pointer source, Pointer target, Type filter) {
         // Done - finish me
-        if (pointerFlowGraph.addEdge(source, target))  {
-            if (!source.getPointsToSet().isEmpty())
-                workList.addEntry(target, source.getPointsToSet());
+        if (pointerFlowGraph.addEdge(source, target, filter))  {
+            PointsToSet pts = filter(source.getPointsToSet(), pointerFlowGraph
+                    .getFilter(source, pointerFlowGraph.getRepresentative(target)));
+            if (!pts.isEmpty())
+                workList.addEntry(target, pts);
         }
     }
 
+    /**
+     * @return the objects of the given set that may flow along an edge
+     * with the given type filter, which may be null.
+     */
+    private PointsToSet filter(PointsToSet pts, Type filter) {
+        if (filter == null) {
+            return pts;
+        }
+        PointsToSet result = PointsToSetFactory.make();
+        pts.forEach(obj -> {
+            if (isSubtype(filter, obj.getObject().getType())) {
+                result.addObject(obj);
+            }
+        });
+        return result;
+    }
+
+    private boolean isSubtype(Type parent, Type child) {
+        return subtypes.computeIfAbsent(parent, t -> Maps.newMap())
+                .computeIfAbsent(child, t -> typeSystem.isSubtype(parent, t));
+    }
+
     /**
      * Processes work-list entries until the work-list is empty.
      */
@@ -223,53 +349,60 @@ class Solver {
             Pointer p = wlEntry.pointer();
             PointsToSet pts = wlEntry.pointsToSet();
             PointsToSet delta = propagate(p, pts);
-            // p is a variable pointer
-            if (p instanceof CSVar csVarPtr) {
-                // x is the variable
-                Var x = csVarPtr.getVar();
-                // Dispatch context
-                Context context = csVarPtr.getContext();
-                // pts(x) = {o1, o2, ...}
-                // for each CS object o_i
-                delta.forEach(obj -> {
-                    // o.f = y
-                    x.getStoreFields().forEach( stmt -> {
-                                CSVar varPtr = csManager.getCSVar(context, stmt.getRValue());
-                                JField field = stmt.getFieldRef().resolve();
-                                InstanceField instanceField = csManager.getInstanceField(obj, field);
-                                addPFGEdge(varPtr, instanceField);
-                            }
-                    );
-                    // y = o.f
-                    x.getLoadFields().forEach( stmt -> {
-                                CSVar varPtr = csManager.getCSVar(context, stmt.getLValue());
-                                JField field = stmt.getFieldRef().resolve();
-                                InstanceField instanceField = csManager.getInstanceField(obj, field);
-
-                                addPFGEdge(instanceField, varPtr);
-                            }
-                    );
-                    // x[i] = y
-                    x.getStoreArrays().forEach( stmt -> {
-                                CSVar varPtr = csManager.getCSVar(context, stmt.getRValue());
-                                ArrayIndex arrayIndex = csManager.getArrayIndex(obj);
-                                addPFGEdge(varPtr, arrayIndex);
-                            }
-                    );
-                    // y = x[i]
-                    x.getLoadArrays().forEach( stmt-> {
-                                CSVar varPtr = csManager.getCSVar(context, stmt.getLValue());
-                                ArrayIndex arrayIndex = csManager.getArrayIndex(obj);
-                                addPFGEdge(arrayIndex, varPtr);
-                            }
-                    );
-                    // r = o.f(a1,...an)
-                    processCall(csVarPtr, obj);
-                });
+            if (!delta.isEmpty()) {
+                // p and the pointers collapsed with it share the new objects
+                processNewObjects(pointerFlowGraph.getMembersOf(p), delta);
+                collapseCycleOf(p);
             }
         }
     }
 
+    /**
+     * Processes the objects newly pointed to by the given pointers, i.e.,
+     * adds the field, array and call constraints of their variables.
+     */
+    private void processNewObjects(Collection<Pointer> members, PointsToSet delta) {
+        for (Pointer member : members) {
+            if (!(member instanceof CSVar csVarPtr)) {
+                continue;
+            }
+            // x is the variable
+            Var x = csVarPtr.getVar();
+            // Dispatch context
+            Context context = csVarPtr.getContext();
+            // pts(x) = {o1, o2, ...}; each statement is resolved once
+            // and then connected to all new CS objects o_i in a batch
+            // o.f = y
+            for (StoreField stmt : x.getStoreFields()) {
+                CSVar varPtr = csManager.getCSVar(context, stmt.getRValue());
+                JField field = stmt.getFieldRef().resolve();
+                delta.forEach(obj -> addPFGEdge(varPtr,
+                        csManager.getInstanceField(obj, field)));
+            }
+            // y = o.f
+            for (LoadField stmt : x.getLoadFields()) {
+                CSVar varPtr = csManager.getCSVar(context, stmt.getLValue());
+                JField field = stmt.getFieldRef().resolve();
+                delta.forEach(obj -> addPFGEdge(
+                        csManager.getInstanceField(obj, field), varPtr));
+            }
+            // x[i] = y
+            for (StoreArray stmt : x.getStoreArrays()) {
+                CSVar varPtr = csManager.getCSVar(context, stmt.getRValue());
+                delta.forEach(obj -> addPFGEdge(varPtr,
+                        csManager.getArrayIndex(obj)));
+            }
+            // y = x[i]
+            for (LoadArray stmt : x.getLoadArrays()) {
+                CSVar varPtr = csManager.getCSVar(context, stmt.getLValue());
+                delta.forEach(obj -> addPFGEdge(
+                        csManager.getArrayIndex(obj), varPtr));
+            }
+            // r = o.f(a1,...an)
+            processCall(csVarPtr, delta);
+        }
+    }
+
     /**
      * Propagates pointsToSet to pt(pointer) and its PFG successors,
      * returns the difference set of pointsToSet and pt(pointer).
@@ -284,44 +417,147 @@ class Solver {
                     delta.addObject(obj);
                 }
             });
-            pointerFlowGraph.getSuccsOf(pointer).forEach( ptr -> {
-                        workList.addEntry(ptr, delta);
+            if (!delta.isEmpty()) {
+                for (Pointer ptr : pointerFlowGraph.getSuccsOf(pointer)) {
+                    PointsToSet out = filter(delta, pointerFlowGraph.getFilter(pointer, ptr));
+                    if (!out.isEmpty()) {
+                        workList.addEntry(ptr, out);
                     }
-            );
+                }
+            }
         }
         return delta;
     }
 
+    /**
+     * Looks for a cycle through the PFG edges of a pointer whose points-to
+     * set has just changed, and collapses the cycle if one is found.
+     */
+    private void collapseCycleOf(Pointer pointer) {
+        PointsToSet pt = pointer.getPointsToSet();
+        for (Pointer succ : pointerFlowGraph.getSuccsOf(pointer)) {
+            // pointers on a cycle end up with equal points-to sets,
+            // so equal sizes are the cue to look for one
+            PointsToSet succPt = succ.getPointsToSet();
+            if (succPt != pt && succPt.size() == pt.size()) {
+                List<Pointer> cycle = pointerFlowGraph.findCycle(pointer, succ);
+                if (!cycle.isEmpty()) {
+                    collapseCycle(cycle);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collapses the pointers on a cycle of the PFG so that they share
+     * one points-to set, which starts as the union of their old sets.
+     * Each old pointer class only receives the objects it lacked: they are
+     * sent along its old PFG edges and processed for its members, so the
+     * objects that a class already had are not propagated again.
+     *
+     * @param cycle representatives of the pointer classes on the cycle
+     */
+    private void collapseCycle(List<Pointer> cycle) {
+        PointsToSet union = PointsToSetFactory.make();
+        cycle.forEach(p -> union.addAll(p.getPointsToSet()));
+        List<CollapsedClass> classes = new ArrayList<>(cycle.size());
+        for (Pointer p : cycle) {
+            PointsToSet old = p.getPointsToSet();
+            PointsToSet lacked = PointsToSetFactory.make();
+            union.forEach(obj -> {
+                if (!old.contains(obj)) {
+                    lacked.addObject(obj);
+                }
+            });
+            if (!lacked.isEmpty()) {
+                List<OutEdge> outEdges = new ArrayList<>();
+                for (Pointer succ : pointerFlowGraph.getSuccsOf(p)) {
+                    outEdges.add(new OutEdge(succ, pointerFlowGraph.getFilter(p, succ)));
+                }
+                classes.add(new CollapsedClass(
+                        List.copyOf(pointerFlowGraph.getMembersOf(p)), outEdges, lacked));
+            }
+        }
+        Pointer rep = pointerFlowGraph.collapse(cycle);
+        pointerFlowGraph.getMembersOf(rep).forEach(p -> p.setPointsToSet(union));
+        for (CollapsedClass c : classes) {
+            for (OutEdge edge : c.outEdges()) {
+                if (pointerFlowGraph.getRepresentative(edge.target()) != rep) {
+                    PointsToSet out = filter(c.lacked(), edge.filter());
+                    if (!out.isEmpty()) {
+                        workList.addEntry(edge.target(), out);
+                    }
+                }
+            }
+            processNewObjects(c.members(), c.lacked());
+        }
+    }
+
+    /**
+     * Pointer class on a collapsed cycle, with its PFG edges before the
+     * collapse and the objects of the cycle that it lacked.
+     */
+    private record CollapsedClass(List<Pointer> members, List<OutEdge> outEdges,
+                                  PointsToSet lacked) {
+    }
+
+    /**
+     * PFG edge to the given target with the given type filter.
+     */
+    private record OutEdge(Pointer target, Type filter) {
+    }
+
     /**
      * Processes instance calls when points-to set of the receiver variable changes.
+     * The call site is resolved once per invoke, and the receivers that
+     * reach the same callee context share one work-list entry.
      *
-     * @param recv    the receiver variable
-     * @param recvObj set of new discovered objects pointed by the variable.
+     * @param recv     the receiver variable
+     * @param recvObjs set of new discovered objects pointed by the variable.
      */
-    private void processCall(CSVar recv, CSObj recvObj) {
+    private void processCall(CSVar recv, PointsToSet recvObjs) {
         // Done - finish me
         // recv: x, recvObj: o
         // r = x.k(a)
         Var var = recv.getVar();
-        var.getInvokes().forEach( invoke -> {
-                    JMethod calleeMethod = resolveCallee(recvObj, invoke);
-                    CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
-                    Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, calleeMethod);
-                    CSMethod csCalleeMethod = csManager.getCSMethod(calleeContext, calleeMethod);
-                    if (calleeMethod.getIR().getThis() != null) //not static, m_this extended
-                    {
-                        CSVar thisPtr = csManager.getCSVar(calleeContext,calleeMethod.getIR().getThis());
-                        workList.addEntry(thisPtr, PointsToSetFactory.make(recvObj));
-                    }
-
-                    // expand reachable world
-                    CallKind callKind = CallGraphs.getCallKind(invoke);
-                    // l->m not in CG before, meaning we haven't expanded this method
-                    if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csCalleeMethod))) {
-                        processCallRoutine(csCallSite, csCalleeMethod);
+        for (Invoke invoke : var.getInvokes()) {
+            long start = System.nanoTime();
+            CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
+            CallKind callKind = CallGraphs.getCallKind(invoke);
+            Map<CSMethod, PointsToSet> recvsOfCallee = Maps.newMap();
+            recvObjs.forEach(recvObj -> {
+                JMethod calleeMethod = resolveCallee(recvObj, invoke);
+                Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, calleeMethod);
+                recvsOfCallee.computeIfAbsent(
+                                csManager.getCSMethod(calleeContext, calleeMethod),
+                                m -> PointsToSetFactory.make())
+                        .addObject(recvObj);
+            });
+            long time = System.nanoTime() - start;
+            int edges = 0;
+            for (Map.Entry<CSMethod, PointsToSet> e : recvsOfCallee.entrySet()) {
+                CSMethod csCalleeMethod = e.getKey();
+                addReachable(csCalleeMethod);
+                Var thisVar = bodies.get(csCalleeMethod.getMethod()).thisVar();
+                if (thisVar != null) //not static, m_this extended
+                {
+                    PointsToSet thisObjs = typeFilter ?
+                            filter(e.getValue(), thisVar.getType()) : e.getValue();
+                    if (!thisObjs.isEmpty()) {
+                        workList.addEntry(csManager.getCSVar(
+                                csCalleeMethod.getContext(), thisVar), thisObjs);
                     }
                 }
-        );
+                // expand reachable world
+                // l->m not in CG before, meaning we haven't expanded this method
+                if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csCalleeMethod))) {
+                    ++edges;
+                    processCallRoutine(csCallSite, csCalleeMethod);
+                }
+            }
+            getPhase("resolve-" + callKind.name().toLowerCase()).record(time, edges);
+        }
     }
 
     private void processCallRoutine(CSCallSite csCallSite, CSMethod csCalleeMethod) {
@@ -336,18 +572,20 @@ class Solver {
         Context callerContext = csCallSite.getContext();
         Context calleeContext = csCalleeMethod.getContext();
         //parameter passing, arg -> function param
-        List<Var> params = csCalleeMethod.getMethod().getIR().getParams();
+        MethodBody calleeBody = bodies.get(csCalleeMethod.getMethod());
+        List<Var> params = calleeBody.params();
         List<Var> args = csCallSite.getCallSite().getInvokeExp().getArgs();
         assert (params.size() == args.size());
         for (int i = 0; i < params.size(); i++) {
             CSVar argPtr = csManager.getCSVar(callerContext, args.get(i));
             CSVar paramPtr = csManager.getCSVar(calleeContext, params.get(i));
-            addPFGEdge(argPtr, paramPtr);
+            addPFGEdge(argPtr, paramPtr,
+                    typeFilter ? params.get(i).getType() : null);
         }
         // return value, function return -> result
         // Notice: sometimes there is no return value!
         if (csCallSite.getCallSite().getLValue() != null) {
-            List<Var> returnVars = csCalleeMethod.getMethod().getIR().getReturnVars();
+            List<Var> returnVars = calleeBody.returnVars();
             CSVar resultPtr = csManager.getCSVar(callerContext, csCallSite.getCallSite().getResult());
             returnVars.forEach(ret -> {
                         CSVar retPtr = csManager.getCSVar(calleeContext, ret);
@@ -371,9 +609,29 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    /**
+     * Lets the pointers with equal points-to sets share one set,
+     * as many pointers, e.g., the locals of the same type, end up with
+     * identical sets.
+     */
+    private void internPointsToSets() {
+        PointsToSetInterner interner = new PointsToSetInterner();
+        Stream.<Collection<? extends Pointer>>of(
+                        csManager.getCSVars(), csManager.getStaticFields(),
+                        csManager.getInstanceFields(), csManager.getArrayIndexes())
+                .flatMap(Collection::stream)
+                .forEach(p -> interner.intern(p.getPointsToSet()));
+    }
+
+    private CallGraphStatistics.Phase getPhase(String name) {
+        return phases.computeIfAbsent(name, CallGraphStatistics.Phase::new);
+    }
+
     PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result.storeResult(CallGraphStatistics.PHASES,
+                    List.copyOf(phases.values()));
         }
         return result;
     }
@@ -24,22 +24,55 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.pta.core.cs.element.Pointer;
 import pascal.taie.analysis.pta.pts.PointsToSet;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
 
 import java.util.ArrayDeque;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 
 /**
- * Represents work list in pointer analysis.
+ * Work list of pointer analysis, which keeps at most one pending entry
+ * for each pointer. The points-to sets added for a pending pointer are
+ * merged into its entry, so that each pointer is propagated once with
+ * the combined set.
  */
 class WorkList {
 
-    private final Queue<Entry> entries = new ArrayDeque<>();
+    /**
+     * Pending pointers in the order they were added.
+     */
+    private final Queue<Pointer> pointers = new ArrayDeque<>();
+
+    /**
+     * Pending points-to set of each pending pointer.
+     */
+    private final Map<Pointer, PointsToSet> pendingSets = Maps.newMap();
+
+    /**
+     * Pointers whose pending sets are created by this work list, and thus
+     * can be updated in place. Other pending sets are given by the callers
+     * and may be shared, so they are copied before merging.
+     */
+    private final Set<Pointer> mergedPointers = Sets.newSet();
 
     /**
-     * Adds an entry to the work list.
+     * Adds an entry to the work list. If the pointer is pending,
+     * the points-to set is merged into its entry.
      */
     void addEntry(Pointer pointer, PointsToSet pointsToSet) {
-        entries.add(new Entry(pointer, pointsToSet));
+        PointsToSet pending = pendingSets.get(pointer);
+        if (pending == null) {
+            pendingSets.put(pointer, pointsToSet);
+            pointers.add(pointer);
+        } else if (pending != pointsToSet) {
+            if (mergedPointers.add(pointer)) {
+                pending = pending.copy();
+                pendingSets.put(pointer, pending);
+            }
+            pending.addAll(pointsToSet);
+        }
     }
 
     /**
@@ -47,14 +80,19 @@ class WorkList {
      * if this work list is empty.
      */
     Entry pollEntry() {
-        return entries.poll();
+        Pointer pointer = pointers.poll();
+        if (pointer == null) {
+            return null;
+        }
+        mergedPointers.remove(pointer);
+        return new Entry(pointer, pendingSets.remove(pointer));
     }
 
     /**
      * @return true if the work list is empty, otherwise false.
      */
     boolean isEmpty() {
-        return entries.isEmpty();
+        return pointers.isEmpty();
     }
 
     /**
@@ -74,6 +74,15 @@ public interface PointsToSet extends Iterable<CSObj> {
      */
     Stream<CSObj> objects();
 
+    /**
+     * @return a new points-to set containing the objects of this set.
+     */
+    default PointsToSet copy() {
+        PointsToSet copy = PointsToSetFactory.make();
+        copy.addAll(this);
+        return copy;
+    }
+
     @Override
     default Iterator<CSObj> iterator() {
         return getObjects().iterator();
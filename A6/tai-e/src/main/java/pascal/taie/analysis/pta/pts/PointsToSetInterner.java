@@ -0,0 +1,48 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Interns points-to sets by content, so that the interned sets with
+ * the same objects share one underlying set.
+ */
+public class PointsToSetInterner {
+
+    private final Map<Set<CSObj>, Set<CSObj>> table = Maps.newMap();
+
+    /**
+     * Interns the given points-to set. Sets that are not made by
+     * {@link PointsToSetFactory} are left unchanged.
+     */
+    public void intern(PointsToSet pts) {
+        if (pts instanceof SharedPointsToSet sharedPts) {
+            sharedPts.intern(table);
+        }
+    }
+}
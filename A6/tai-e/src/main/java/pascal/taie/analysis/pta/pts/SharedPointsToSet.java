@@ -0,0 +1,138 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.pts;
+
+import pascal.taie.analysis.pta.core.cs.element.CSObj;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Points-to set whose underlying set may be shared with other points-to
+ * sets, e.g., by {@link #copy()} or by interning. A shared set is copied
+ * before this points-to set changes.
+ */
+class SharedPointsToSet implements PointsToSet {
+
+    private Set<CSObj> set;
+
+    /**
+     * Whether {@link #set} may be shared with other points-to sets.
+     */
+    private boolean shared;
+
+    SharedPointsToSet(Set<CSObj> set) {
+        this.set = set;
+    }
+
+    private Set<CSObj> getWritableSet() {
+        if (shared) {
+            set = Sets.newHybridSet(set);
+            shared = false;
+        }
+        return set;
+    }
+
+    @Override
+    public boolean addObject(CSObj obj) {
+        return !set.contains(obj) && getWritableSet().add(obj);
+    }
+
+    @Override
+    public boolean addAll(PointsToSet pts) {
+        if (pts instanceof SharedPointsToSet other && other.set == set) {
+            return false;
+        }
+        Set<CSObj> objects = pts.getObjects();
+        return !set.containsAll(objects) && getWritableSet().addAll(objects);
+    }
+
+    @Override
+    public boolean contains(CSObj obj) {
+        return set.contains(obj);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return set.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return set.size();
+    }
+
+    @Override
+    public Set<CSObj> getObjects() {
+        return Collections.unmodifiableSet(set);
+    }
+
+    @Override
+    public Stream<CSObj> objects() {
+        return set.stream();
+    }
+
+    @Override
+    public PointsToSet copy() {
+        SharedPointsToSet copy = new SharedPointsToSet(set);
+        shared = copy.shared = true;
+        return copy;
+    }
+
+    /**
+     * Replaces the underlying set with the equal set in the given table,
+     * or adds the underlying set to the table.
+     */
+    void intern(Map<Set<CSObj>, Set<CSObj>> table) {
+        set = table.computeIfAbsent(set, s -> s);
+        shared = true;
+    }
+
+    /**
+     * Two points-to sets are equal if they contain the same objects;
+     * interned sets are compared by reference.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SharedPointsToSet other)) {
+            return false;
+        }
+        return set == other.set || set.equals(other.set);
+    }
+
+    @Override
+    public int hashCode() {
+        return set.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return set.toString();
+    }
+}
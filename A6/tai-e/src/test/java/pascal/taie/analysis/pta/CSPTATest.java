@@ -22,8 +22,20 @@
 
 package pascal.taie.analysis.pta;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
 
 public class CSPTATest {
 
@@ -93,4 +105,47 @@ public class CSPTATest {
     public void testArray() {
         Tests.testCSPTA(DIR, "Array");
     }
+
+    @Test
+    public void testAllocationType() {
+        Tests.testCSPTA(DIR, "AllocationType", "heap-model:allocation-type");
+        // merging no type of the program must give the default results
+        Tests.testCSPTA(DIR, "StoreLoad", "heap-model:allocation-type",
+                "merge-packages:java");
+    }
+
+    @Test
+    public void testTypeFilter() {
+        // only the objects of type A flow through the cast
+        Tests.testCSPTA(DIR, "TypeFilter", "type-filter:true");
+        // without the filter, all objects flow through the cast
+        Tests.testCSPTA(DIR, "Cast");
+        // programs without casts keep the default results
+        for (String main : List.of("New", "Assign", "StoreLoad", "Call",
+                "InstanceField", "StaticField", "Array")) {
+            Tests.testCSPTA(DIR, main, "type-filter:true");
+        }
+    }
+
+    @Test
+    public void testBoundedIRCache() {
+        // IRs are evicted and rebuilt while solving,
+        // which should still give the expected results
+        for (String main : List.of("Call", "InstanceField", "StaticField")) {
+            Tests.testCSPTA(DIR, main, "ir-cache-size:1");
+        }
+    }
+
+    @Test
+    public void testCallGraphStats() throws IOException {
+        File statsFile = File.createTempFile("TwoCall-cg-stats", ".json");
+        statsFile.deleteOnExit();
+        Tests.testCSPTA(DIR, "TwoCall", "cs:2-call", "-a",
+                "cg=algorithm:cspta;stats:true;stats-file:" + statsFile);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        JsonNode stats = new ObjectMapper().readTree(statsFile);
+        Assert.assertEquals(callGraph.getNumberOfMethods(), stats.get("methods").asInt());
+        Assert.assertEquals(callGraph.getNumberOfEdges(), stats.get("edges").asInt());
+        Assert.assertFalse(stats.get("phases").isEmpty());
+    }
 }
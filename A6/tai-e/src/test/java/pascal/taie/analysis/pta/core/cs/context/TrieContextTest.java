@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TrieContextTest {
+
+    @Test
+    public void testAppend() {
+        TrieContext.Factory factory = new TrieContext.Factory();
+        Context empty = factory.getEmptyContext();
+        Context a = factory.append(empty, "a", 2);
+        Context ab = factory.append(a, "b", 2);
+        Assert.assertSame(factory.make("a"), a);
+        Assert.assertSame(factory.make("a", "b"), ab);
+        // the oldest element is dropped beyond the limit
+        Context bc = factory.append(ab, "c", 2);
+        Assert.assertSame(factory.make("b", "c"), bc);
+        Assert.assertEquals("[b, c]", bc.toString());
+        Assert.assertSame(factory.make("c"), factory.append(ab, "c", 1));
+        // appending again gives the same context object
+        Assert.assertSame(bc, factory.append(ab, "c", 2));
+        Assert.assertSame(bc, factory.append(factory.make("x", "b"), "c", 2));
+    }
+
+    @Test
+    public void testTruncate() {
+        TrieContext.Factory factory = new TrieContext.Factory();
+        Context abc = factory.make("a", "b", "c");
+        Assert.assertSame(abc, factory.truncate(abc, 3));
+        Assert.assertSame(abc, factory.truncate(abc, 5));
+        Assert.assertSame(factory.make("b", "c"), factory.truncate(abc, 2));
+        Assert.assertSame(factory.make("c"), factory.truncate(abc, 1));
+        Assert.assertSame(factory.getEmptyContext(), factory.truncate(abc, 0));
+        Assert.assertEquals(1, factory.truncate(abc, 1).getLength());
+        Assert.assertEquals("c", factory.truncate(abc, 1).getElementAt(0));
+    }
+
+    @Test
+    public void testIds() {
+        TrieContext.Factory factory = new TrieContext.Factory();
+        Context ab = factory.make("a", "b");
+        // the empty context, [a] and [a, b]
+        Assert.assertEquals(3, factory.getContextCount());
+        TrieContext context = (TrieContext) ab;
+        Assert.assertSame(ab, factory.getContext(context.getId()));
+        Assert.assertEquals(context.getId(), ab.hashCode());
+    }
+}
@@ -0,0 +1,17 @@
+public class AllocationType {
+
+    public static void main(String[] args) {
+        A a1 = new A();
+        A a2 = new A();
+        B b1 = new B();
+        a1.f = b1;
+        B b2 = a2.f;
+    }
+}
+
+class A {
+    B f;
+}
+
+class B {
+}
@@ -0,0 +1,253 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.pta.CIPointerAnalysisResult;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.ArrayAccess;
+import pascal.taie.ir.exp.InstanceFieldAccess;
+import pascal.taie.ir.exp.StaticFieldAccess;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.proginfo.FieldRef;
+import pascal.taie.ir.stmt.LoadArray;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Heap abstraction of alias-aware constant propagation, which maintains
+ * the values of instance fields, array elements and static fields.
+ * <p>
+ * Each run of the analysis owns its heap, so that multiple analyses can
+ * run in the same JVM. The heap values are kept in a {@link HeapValueStore},
+ * which may be updated by multiple threads of the parallel solver.
+ */
+public class CPHeap {
+
+    /**
+     * Default capacity of the caches of affected loads.
+     */
+    public static final int DEFAULT_ALIAS_CACHE_SIZE = 4096;
+
+    private final CIPointerAnalysisResult pta;
+
+    /**
+     * Values of instance fields, array elements and static fields.
+     */
+    private final HeapValueStore values = new HeapValueStore();
+
+    /**
+     * Cache for static load field access (x = T.f).
+     */
+    private final Map<Pair<JClass, JField>, Set<LoadField>> staticLoadFields = new HashMap<>();
+
+    /**
+     * Inverse points-to map from objects to the variables pointing to them,
+     * which only contains the bases of instance field and array loads.
+     */
+    private final Map<Obj, Set<Var>> objToVar = new HashMap<>();
+
+    /**
+     * Bounded LRU cache of the load statements that may read each field
+     * of each object (x = y.f), which are computed from {@link #objToVar}
+     * when the value of the field is changed.
+     */
+    private final Map<Pair<Obj, JField>, Set<LoadField>> instanceLoadFields;
+
+    /**
+     * Bounded LRU cache of the load statements that may read the elements
+     * of each array object, which are computed in the same way.
+     */
+    private final Map<Obj, Set<LoadArray>> loadArrays;
+
+    /**
+     * @param pta            the pointer analysis result that resolves aliases
+     * @param stmts          the statements that may access the heap
+     * @param aliasCacheSize the maximum number of cached load sets
+     *                       of instance fields and of arrays
+     */
+    public CPHeap(CIPointerAnalysisResult pta, Collection<Stmt> stmts,
+                  int aliasCacheSize) {
+        this.pta = pta;
+        this.instanceLoadFields = newCache(aliasCacheSize);
+        this.loadArrays = newCache(aliasCacheSize);
+        // We generate inverse map from object to the bases of loads, and
+        // the loads of a heap location are derived from it on demand,
+        // so that a changed location only wakes its own loads
+        Set<Var> bases = new HashSet<>();
+        stmts.forEach(stmt -> {
+            if (stmt instanceof LoadField s) {
+                if (s.getFieldAccess() instanceof InstanceFieldAccess access) {
+                    bases.add(access.getBase());
+                } else if (s.getFieldAccess() instanceof StaticFieldAccess access) {
+                    staticLoadFields.computeIfAbsent(getStaticKey(access),
+                            k -> new HashSet<>()).add(s);
+                }
+            } else if (stmt instanceof LoadArray s) {
+                bases.add(s.getArrayAccess().getBase());
+            }
+        });
+        for (Var base : bases) {
+            for (Obj obj : pta.getPointsToSet(base)) {
+                objToVar.computeIfAbsent(obj, k -> new HashSet<>()).add(base);
+            }
+        }
+    }
+
+    private static <K, V> Map<K, V> newCache(int capacity) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the value of the instance field loaded by given access.
+     */
+    public Value loadInstanceField(InstanceFieldAccess access) {
+        return values.loadField(pta.getPointsToSet(access.getBase()),
+                access.getFieldRef().resolve());
+    }
+
+    /**
+     * @return the value of the static field loaded by given access.
+     */
+    public Value loadStaticField(StaticFieldAccess access) {
+        return values.loadStaticField(getStaticKey(access));
+    }
+
+    /**
+     * @return the value of the array element loaded by given access.
+     */
+    public Value loadArray(ArrayAccess access, Value index) {
+        return values.loadArray(pta.getPointsToSet(access.getBase()), index);
+    }
+
+    /**
+     * Stores a value to the field written by given statement.
+     *
+     * @param affectedLoads receives the load statements that may read
+     *                      the changed values
+     */
+    public void storeField(StoreField store, Value value, Consumer<Stmt> affectedLoads) {
+        // Instance store Field: x.f = y
+        if(store.getFieldAccess() instanceof InstanceFieldAccess access) {
+            JField field = store.getFieldRef().resolve();
+            for (Obj obj : pta.getPointsToSet(access.getBase())) {
+                if(values.storeField(obj, field, value)) {
+                    getLoadFields(obj, field).forEach(affectedLoads);
+                }
+            }
+        }
+        // Static field Store: T.f = x
+        if(store.getFieldAccess() instanceof StaticFieldAccess access) {
+            Pair<JClass, JField> key = getStaticKey(access);
+            if(values.storeStaticField(key, value)) {
+                staticLoadFields.getOrDefault(key, Set.of())
+                        .forEach(affectedLoads);
+            }
+        }
+    }
+
+    /**
+     * Stores a value to the array element written by given statement.
+     *
+     * @param index         the value of the index, which is not UNDEF
+     * @param affectedLoads receives the load statements that may read
+     *                      the changed values
+     */
+    public void storeArray(StoreArray store, Value index, Value value,
+                           Consumer<Stmt> affectedLoads) {
+        for (Obj obj : pta.getPointsToSet(store.getArrayAccess().getBase())) {
+            if(values.storeArray(obj, index, value)) {
+                getLoadArrays(obj).forEach(affectedLoads);
+            }
+        }
+    }
+
+    /**
+     * @return the loads of given field via the variables
+     * that may point to given object.
+     */
+    private Set<LoadField> getLoadFields(Obj obj, JField field) {
+        Pair<Obj, JField> key = new Pair<>(obj, field);
+        Set<LoadField> loads;
+        synchronized (instanceLoadFields) {
+            loads = instanceLoadFields.get(key);
+        }
+        if (loads == null) {
+            loads = new HashSet<>();
+            for (Var var : objToVar.getOrDefault(obj, Set.of())) {
+                for (LoadField load : var.getLoadFields()) {
+                    if (field.equals(load.getFieldRef().resolve())) {
+                        loads.add(load);
+                    }
+                }
+            }
+            synchronized (instanceLoadFields) {
+                instanceLoadFields.put(key, loads);
+            }
+        }
+        return loads;
+    }
+
+    /**
+     * @return the array loads via the variables
+     * that may point to given array object.
+     */
+    private Set<LoadArray> getLoadArrays(Obj array) {
+        Set<LoadArray> loads;
+        synchronized (loadArrays) {
+            loads = loadArrays.get(array);
+        }
+        if (loads == null) {
+            loads = new HashSet<>();
+            for (Var var : objToVar.getOrDefault(array, Set.of())) {
+                loads.addAll(var.getLoadArrays());
+            }
+            synchronized (loadArrays) {
+                loadArrays.put(array, loads);
+            }
+        }
+        return loads;
+    }
+
+    private static Pair<JClass, JField> getStaticKey(StaticFieldAccess access) {
+        FieldRef fieldRef = access.getFieldRef();
+        return new Pair<>(fieldRef.getDeclaringClass(), fieldRef.resolve());
+    }
+}
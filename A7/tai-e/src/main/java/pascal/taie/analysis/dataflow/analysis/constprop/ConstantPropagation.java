@@ -23,9 +23,7 @@
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
 import pascal.taie.analysis.dataflow.analysis.AbstractDataflowAnalysis;
-import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
 import pascal.taie.analysis.graph.cfg.CFG;
-import pascal.taie.analysis.pta.core.heap.Obj;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.*;
@@ -35,23 +33,28 @@ import pascal.taie.ir.stmt.Stmt;
 import pascal.taie.language.type.PrimitiveType;
 import pascal.taie.language.type.Type;
 import pascal.taie.util.AnalysisException;
-import pascal.taie.util.collection.Pair;
 
-import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import static pascal.taie.analysis.dataflow.inter.InterConstantPropagation.*;
-
 public class ConstantPropagation extends
         AbstractDataflowAnalysis<Stmt, CPFact> {
 
     public static final String ID = "constprop";
-    public static InterConstantPropagation interCP;
+
+    /**
+     * Heap abstraction for evaluating field and array accesses,
+     * or null if the heap is not modeled.
+     */
+    private CPHeap heap;
 
     public ConstantPropagation(AnalysisConfig config) {
         super(config);
     }
 
+    public void setHeap(CPHeap heap) {
+        this.heap = heap;
+    }
+
     @Override
     public boolean isForward() {
         return true;
@@ -112,7 +115,7 @@ public class ConstantPropagation extends
             if(s.getLValue() instanceof Var var && canHoldInt(var))
             {
                 Value old_val = in.get(var);
-                Value new_val = evaluate(s.getRValue(), in);
+                Value new_val = evaluate(s.getRValue(), in, heap);
                 if(old_val != new_val)changed.set(true);
                 out.update(var, new_val);
             }
@@ -145,8 +148,21 @@ public class ConstantPropagation extends
      * @param in  IN fact of the statement
      * @return the resulting {@link Value}
      */
-
     public static Value evaluate(Exp exp, CPFact in) {
+        return evaluate(exp, in, null);
+    }
+
+    /**
+     * Evaluates the {@link Value} of given expression.
+     *
+     * @param exp  the expression to be evaluated
+     * @param in   IN fact of the statement
+     * @param heap heap abstraction for field and array accesses,
+     *             or null if the heap is not modeled (then the values
+     *             of field and array accesses are NAC)
+     * @return the resulting {@link Value}
+     */
+    public static Value evaluate(Exp exp, CPFact in, CPHeap heap) {
         // Done - finish me
         //Expression Case 1: x=c
         if(exp instanceof IntLiteral e)
@@ -272,58 +288,20 @@ public class ConstantPropagation extends
 
         // Expression Case 4: instanceField
         if (exp instanceof InstanceFieldAccess instanceExp) {
-        //============== Version1: Use instanceManager ===================
-            Value temp = Value.getUndef();
-            for(Obj obj : pta.getPointsToSet(instanceExp.getBase())){
-                temp = meetValue(temp, instanceManager.getOrDefault(new Pair<>(obj, instanceExp.getFieldRef()), Value.getUndef()));
-            }
-            return temp;
-
-
-            //============== Version2: Use varManager(This version won't work) ===================
-//            Value temp_var = Value.getUndef();
-//            temp_var = meetValue(temp_var,
-//                    varManager.getOrDefault(new Pair<>(instanceExp.getBase().getName(), instanceExp.getFieldRef()),
-//                            Value.getUndef()));
-//            return temp_var;
-            // Notice: the commented version using varManager needs to be treated carefully.
-            // the key problem is that the statement is polled from the worklist,
-            // which means that it is a copy of the original statement. The new stmt is a copy instead of a reference
-            // So we cannot use the new statement to get the original variable, which serves as the key in varManager.
-            // Consequently, we cannot get the value of the variable from varManager.
-            // My solution is to use instanceexp.getbase.getname() instead of instanceexp.getbase()
-            // to make sure we use the String as the Key, but there may be variable with the same name in different scope
-            // So maybe a better solution can be developed in the future.
-
+            return heap != null ? heap.loadInstanceField(instanceExp) : Value.getNAC();
         }
 
         //Expression Case 5: staticField
         if (exp instanceof StaticFieldAccess staticExp) {
-            return staticValManager.getOrDefault(
-                    new Pair<>(staticExp.getFieldRef().getDeclaringClass(), staticExp.getFieldRef().resolve()), Value.getUndef());
+            return heap != null ? heap.loadStaticField(staticExp) : Value.getNAC();
         }
 
         //Expression Case 6: array
         if (exp instanceof ArrayAccess arrayExp) {
-            Value idx = evaluate(arrayExp.getIndex(), in);
-            Value temp = Value.getUndef();
-            if (idx.isConstant()) {
-                for (Obj obj : pta.getPointsToSet(arrayExp.getBase())) {
-                    temp = meetValue(temp, arrayManager.getOrDefault(new Pair<>(obj, idx), Value.getUndef()));
-                    temp = meetValue(temp, arrayManager.getOrDefault(new Pair<>(obj, Value.getNAC()), Value.getUndef()));
-                }
-            }
-            if (idx.isNAC()) {
-                for(Obj obj : pta.getPointsToSet(arrayExp.getBase())){
-                    for(Map.Entry<Pair<?, Value>, Value> entry : arrayManager.entrySet()){
-                        Pair<?, Value> qPair = entry.getKey();
-                        if(qPair.first().equals(obj)){
-                            temp = meetValue(temp, entry.getValue());
-                        }
-                    }
-                }
+            if (heap == null) {
+                return Value.getNAC();
             }
-            return temp;
+            return heap.loadArray(arrayExp, evaluate(arrayExp.getIndex(), in, heap));
         }
 
         //Done: Shouldn't reach? Answer: array.length,
@@ -0,0 +1,166 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.dataflow.inter.FlowFunction;
+import pascal.taie.analysis.dataflow.inter.IFDSProblem;
+import pascal.taie.analysis.dataflow.inter.IFDSSolver;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.ir.exp.IntLiteral;
+import pascal.taie.ir.exp.InvokeExp;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.AssignLiteral;
+import pascal.taie.ir.stmt.Copy;
+import pascal.taie.ir.stmt.DefinitionStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Sets;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Copy-constant propagation as an {@link IFDSProblem}, which is solved
+ * by {@link IFDSSolver}.
+ * <p>
+ * Each fact (x, v) means that variable x may hold value v at a node,
+ * where v is an int constant or NAC. Variable x holds constant c if
+ * (x, c) is its only fact, see {@link #toCPFact(Set)}. Only int literals
+ * and copies are tracked precisely, i.e., other definitions of int
+ * variables, such as binary expressions and field loads, produce NAC.
+ * As {@link IFDSSolver} analyzes each method once per entry fact,
+ * constants passed by different call sites of a method do not merge.
+ */
+public class CopyConstantPropagation implements IFDSProblem<Stmt, CopyConstantPropagation.Fact> {
+
+    private static final Fact ZERO = new Fact(null, Value.getUndef());
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    public CopyConstantPropagation(ICFG<JMethod, Stmt> icfg) {
+        this.icfg = icfg;
+    }
+
+    @Override
+    public Fact zeroValue() {
+        return ZERO;
+    }
+
+    @Override
+    public FlowFunction<Fact> getNormalFlowFunction(NormalEdge<Stmt> edge) {
+        Stmt stmt = edge.getSource();
+        if (!(stmt instanceof DefinitionStmt<?, ?> def)
+                || !(def.getLValue() instanceof Var lValue)
+                || !ConstantPropagation.canHoldInt(lValue)) {
+            return Set::of;
+        }
+        Var rValue = stmt instanceof Copy copy ? copy.getRValue() : null;
+        Value value;
+        if (stmt instanceof AssignLiteral assign
+                && assign.getRValue() instanceof IntLiteral literal) {
+            value = Value.makeConstant(literal.getValue());
+        } else {
+            value = Value.getNAC();
+        }
+        return fact -> {
+            if (fact.equals(ZERO)) {
+                return rValue != null ? Set.of() : Set.of(new Fact(lValue, value));
+            }
+            Set<Fact> result = Sets.newHybridSet();
+            if (!fact.var().equals(lValue)) {
+                result.add(fact);
+            }
+            if (fact.var().equals(rValue)) {
+                result.add(new Fact(lValue, fact.value()));
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public FlowFunction<Fact> getCallFlowFunction(CallEdge<Stmt> edge) {
+        InvokeExp invokeExp = ((Invoke) edge.getSource()).getInvokeExp();
+        List<Var> params = edge.getCallee().getIR().getParams();
+        return fact -> {
+            Set<Fact> result = Sets.newHybridSet();
+            for (int i = 0; i < params.size(); ++i) {
+                if (invokeExp.getArg(i).equals(fact.var())) {
+                    result.add(new Fact(params.get(i), fact.value()));
+                }
+            }
+            return result;
+        };
+    }
+
+    @Override
+    public FlowFunction<Fact> getReturnFlowFunction(ReturnEdge<Stmt> edge) {
+        Var lValue = ((Invoke) edge.getCallSite()).getLValue();
+        Collection<Var> returnVars = edge.getReturnVars();
+        return fact -> lValue != null && !fact.equals(ZERO)
+                && returnVars.contains(fact.var()) ?
+                Set.of(new Fact(lValue, fact.value())) : Set.of();
+    }
+
+    @Override
+    public FlowFunction<Fact> getCallToReturnFlowFunction(CallToReturnEdge<Stmt> edge) {
+        Var lValue = ((Invoke) edge.getSource()).getLValue();
+        if (lValue == null || !ConstantPropagation.canHoldInt(lValue)) {
+            return Set::of;
+        }
+        // the result of a call without callees in the ICFG is unknown
+        boolean hasCallee = icfg.getOutEdgesOf(edge.getSource())
+                .stream()
+                .anyMatch(e -> e instanceof CallEdge);
+        return fact -> {
+            if (fact.equals(ZERO)) {
+                return hasCallee ? Set.of() : Set.of(new Fact(lValue, Value.getNAC()));
+            }
+            return fact.var().equals(lValue) ? Set.of() : Set.of(fact);
+        };
+    }
+
+    /**
+     * Converts the facts that hold at a node to a {@link CPFact}, which
+     * maps each variable to the meet of its values.
+     */
+    public static CPFact toCPFact(Set<Fact> facts) {
+        CPFact result = new CPFact();
+        for (Fact fact : facts) {
+            result.update(fact.var(),
+                    ConstantPropagation.meetValue(result.get(fact.var()), fact.value()));
+        }
+        return result;
+    }
+
+    /**
+     * Fact that {@code var} may hold {@code value}.
+     */
+    public record Fact(Var var, Value value) {
+    }
+}
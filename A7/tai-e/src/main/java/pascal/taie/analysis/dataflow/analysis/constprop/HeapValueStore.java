@@ -0,0 +1,324 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.language.classes.JClass;
+import pascal.taie.language.classes.JField;
+import pascal.taie.util.collection.Pair;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact store of the values of instance fields, array elements and
+ * static fields for {@link CPHeap}.
+ * <p>
+ * Abstract objects and fields are numbered, and values are encoded as
+ * long integers and kept in primitive open-addressing tables, so that
+ * reading and meet-updating a value allocate no objects (except the
+ * resulting {@link Value} of a non-cached constant). For each array
+ * object, the store also keeps the meet of all its element values,
+ * which answers the loads whose index is NAC.
+ * <p>
+ * Fields are identified by the resolved {@link JField}s, and static
+ * fields by their (declaring class of the reference, field) pairs,
+ * in the same way as {@link CPHeap} finds the loads to wake up, so that
+ * the accesses via different references to the same field share values.
+ * <p>
+ * All operations are synchronized, as the parallel solver may access
+ * the store from multiple threads.
+ */
+class HeapValueStore {
+
+    /**
+     * Encoded UNDEF, which is also the value of absent keys.
+     */
+    private static final long UNDEF = 0L;
+
+    private static final long CONSTANT = 1L << 32;
+
+    private static final long NAC = 1L << 33;
+
+    private final Map<Obj, Integer> objIds = new HashMap<>();
+
+    private final Map<JField, Integer> fieldIds = new HashMap<>();
+
+    private final Map<Pair<JClass, JField>, Integer> staticFieldIds = new HashMap<>();
+
+    /**
+     * (object, field) -> value.
+     */
+    private final LongTable instanceValues = new LongTable();
+
+    /**
+     * (array object, constant index) -> value.
+     */
+    private final LongTable arrayValues = new LongTable();
+
+    /**
+     * Field -> value of static fields.
+     */
+    private final LongTable staticValues = new LongTable();
+
+    /**
+     * Array object -> value stored with NAC index.
+     */
+    private long[] arrayNACValues = new long[64];
+
+    /**
+     * Array object -> meet of all element values.
+     */
+    private long[] arraySummaries = new long[64];
+
+    synchronized Value loadField(Collection<Obj> objs, JField field) {
+        Integer fieldId = fieldIds.get(field);
+        if (fieldId == null) {
+            return Value.getUndef();
+        }
+        long value = UNDEF;
+        for (Obj obj : objs) {
+            Integer objId = objIds.get(obj);
+            if (objId != null) {
+                value = meet(value, instanceValues.get(key(objId, fieldId)));
+            }
+        }
+        return decode(value);
+    }
+
+    /**
+     * Meets a value into the value of given field of given object.
+     *
+     * @return true if the value of the field is changed.
+     */
+    synchronized boolean storeField(Obj obj, JField field, Value value) {
+        return instanceValues.meet(key(getObjId(obj), getId(fieldIds, field)),
+                encode(value));
+    }
+
+    synchronized Value loadStaticField(Pair<JClass, JField> field) {
+        Integer fieldId = staticFieldIds.get(field);
+        return fieldId == null ? Value.getUndef()
+                : decode(staticValues.get(fieldId));
+    }
+
+    /**
+     * Meets a value into the value of given static field.
+     *
+     * @return true if the value of the field is changed.
+     */
+    synchronized boolean storeStaticField(Pair<JClass, JField> field, Value value) {
+        return staticValues.meet(getId(staticFieldIds, field), encode(value));
+    }
+
+    synchronized Value loadArray(Collection<Obj> objs, Value index) {
+        long value = UNDEF;
+        if (index.isConstant()) {
+            for (Obj obj : objs) {
+                Integer objId = objIds.get(obj);
+                if (objId != null) {
+                    value = meet(value, arrayValues.get(key(objId, index.getConstant())));
+                    value = meet(value, arrayNACValues[objId]);
+                }
+            }
+        } else if (index.isNAC()) {
+            for (Obj obj : objs) {
+                Integer objId = objIds.get(obj);
+                if (objId != null) {
+                    value = meet(value, arraySummaries[objId]);
+                }
+            }
+        }
+        return decode(value);
+    }
+
+    /**
+     * Meets a value into the value of the element of given array object
+     * at given index.
+     *
+     * @param index a constant or NAC
+     * @return true if the value of the element is changed.
+     */
+    synchronized boolean storeArray(Obj obj, Value index, Value value) {
+        int objId = getObjId(obj);
+        long v = encode(value);
+        boolean changed;
+        if (index.isConstant()) {
+            changed = arrayValues.meet(key(objId, index.getConstant()), v);
+        } else {
+            long old = arrayNACValues[objId];
+            arrayNACValues[objId] = meet(old, v);
+            changed = arrayNACValues[objId] != old;
+        }
+        if (changed) {
+            arraySummaries[objId] = meet(arraySummaries[objId], v);
+        }
+        return changed;
+    }
+
+    private int getObjId(Obj obj) {
+        Integer id = objIds.get(obj);
+        if (id == null) {
+            id = objIds.size();
+            objIds.put(obj, id);
+            if (id == arrayNACValues.length) {
+                arrayNACValues = Arrays.copyOf(arrayNACValues, id * 2);
+                arraySummaries = Arrays.copyOf(arraySummaries, id * 2);
+            }
+        }
+        return id;
+    }
+
+    private static <K> int getId(Map<K, Integer> ids, K key) {
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+        }
+        return id;
+    }
+
+    private static long key(int high, int low) {
+        return ((long) high << 32) | (low & 0xffffffffL);
+    }
+
+    private static long encode(Value value) {
+        if (value.isUndef()) {
+            return UNDEF;
+        } else if (value.isNAC()) {
+            return NAC;
+        } else {
+            return CONSTANT | (value.getConstant() & 0xffffffffL);
+        }
+    }
+
+    private static Value decode(long value) {
+        if (value == UNDEF) {
+            return Value.getUndef();
+        } else if (value == NAC) {
+            return Value.getNAC();
+        } else {
+            return Value.makeConstant((int) value);
+        }
+    }
+
+    /**
+     * Meets two encoded values, which is consistent with
+     * {@link ConstantPropagation#meetValue(Value, Value)}.
+     */
+    private static long meet(long v1, long v2) {
+        if (v1 == UNDEF) {
+            return v2;
+        } else if (v2 == UNDEF || v1 == v2) {
+            return v1;
+        } else {
+            return NAC;
+        }
+    }
+
+    /**
+     * Open-addressing hash table from non-negative long keys to encoded
+     * values, with linear probing.
+     */
+    private static class LongTable {
+
+        private static final long EMPTY = -1L;
+
+        private long[] keys;
+
+        private long[] values;
+
+        private int size;
+
+        private LongTable() {
+            keys = new long[16];
+            values = new long[16];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        private long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+                long k = keys[i];
+                if (k == key) {
+                    return values[i];
+                } else if (k == EMPTY) {
+                    return UNDEF;
+                }
+            }
+        }
+
+        /**
+         * Meets a value into the value of given key.
+         *
+         * @return true if the value of the key is changed.
+         */
+        private boolean meet(long key, long value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != key && keys[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            if (keys[i] == key) {
+                long old = values[i];
+                values[i] = HeapValueStore.meet(old, value);
+                return values[i] != old;
+            }
+            if (value == UNDEF) {
+                return false;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length) {
+                rehash();
+            }
+            return true;
+        }
+
+        private void rehash() {
+            long[] oldKeys = keys;
+            long[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            Arrays.fill(keys, EMPTY);
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; ++j) {
+                if (oldKeys[j] != EMPTY) {
+                    int i = hash(oldKeys[j]) & mask;
+                    while (keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+}
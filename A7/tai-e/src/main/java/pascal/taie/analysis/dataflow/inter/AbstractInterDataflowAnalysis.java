@@ -121,9 +121,43 @@ public abstract class AbstractInterDataflowAnalysis<Method, Node, Fact>
     public Object analyze() {
         icfg = World.get().getResult(ICFGBuilder.ID);
         initialize();
-        solver = new InterSolver<>(this, icfg);
-        DataflowResult<Node, Fact> result = solver.solve();
+        DataflowResult<Node, Fact> result = solve();
         finish();
         return result;
     }
+
+    /**
+     * Solves this analysis on {@link #icfg}, by {@link ParallelInterSolver}
+     * if more than one thread is given, or by {@link InterSolver} otherwise.
+     * If the concrete analysis provides other solvers, then it can
+     * overwrite this method to select them.
+     */
+    protected DataflowResult<Node, Fact> solve() {
+        int threads = getThreads();
+        if (threads > 1) {
+            return new ParallelInterSolver<>(this, icfg, threads).solve();
+        } else {
+            solver = new InterSolver<>(this, icfg);
+            return solver.solve();
+        }
+    }
+
+    /**
+     * @return the number of threads used by the solver, which is given
+     * by option "threads" (1 by default). Non-positive value means
+     * the number of available processors.
+     */
+    protected int getThreads() {
+        int threads = getIntOption("threads", 1);
+        return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * @return the value of given int option, or {@code defaultValue}
+     * if the option is not given.
+     */
+    protected int getIntOption(String key, int defaultValue) {
+        return getOptions().get(key) != null ?
+                getOptions().getInt(key) : defaultValue;
+    }
 }
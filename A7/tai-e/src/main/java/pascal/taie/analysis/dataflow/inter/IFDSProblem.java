@@ -0,0 +1,71 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+
+/**
+ * Template interface for defining inter-procedural, finite, distributive
+ * subset (IFDS) problems, which are solved by {@link IFDSSolver}.
+ * <p>
+ * Each kind of ICFG edges has its own flow function. The special zero
+ * fact always holds, and {@link IFDSSolver} propagates it along every
+ * edge, thus flow functions only need to handle the facts generated
+ * from the zero fact, but not the zero fact itself.
+ *
+ * @param <Node> type of ICFG nodes
+ * @param <D>    type of data-flow facts
+ */
+public interface IFDSProblem<Node, D> {
+
+    /**
+     * @return the zero fact of the problem.
+     */
+    D zeroValue();
+
+    /**
+     * @return flow function for the edge within a method.
+     */
+    FlowFunction<D> getNormalFlowFunction(NormalEdge<Node> edge);
+
+    /**
+     * @return flow function that maps the facts of the call site
+     * to the facts of the callee entry.
+     */
+    FlowFunction<D> getCallFlowFunction(CallEdge<Node> edge);
+
+    /**
+     * @return flow function that maps the facts of the callee exit
+     * to the facts of the return site.
+     */
+    FlowFunction<D> getReturnFlowFunction(ReturnEdge<Node> edge);
+
+    /**
+     * @return flow function for the facts that bypass the callees,
+     * e.g., the facts of local variables that are not passed to callees.
+     */
+    FlowFunction<D> getCallToReturnFlowFunction(CallToReturnEdge<Node> edge);
+}
@@ -0,0 +1,263 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.NormalEdge;
+import pascal.taie.analysis.graph.icfg.ReturnEdge;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Tabulation solver for IFDS problems, which follows the algorithm of
+ * Reps, Horwitz and Sagiv (POPL 1995).
+ * <p>
+ * The solver computes path edges (jump functions) &lt;sp, d1&gt; -&gt;
+ * &lt;n, d2&gt;, which mean that fact d2 holds at node n if fact d1 holds
+ * at the entry sp of the method containing n. The path edges that reach
+ * the exit of a method are recorded as end summaries of the method, and
+ * they are applied to every call site of the method, thus each method is
+ * analyzed once per entry fact instead of once per call site.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ * @param <D>      type of data-flow facts
+ */
+public class IFDSSolver<Method, Node, D> {
+
+    private final IFDSProblem<Node, D> problem;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final D zero;
+
+    /**
+     * Path edges. For each node n, maps each fact d2 at n to the facts d1
+     * at the method entry such that &lt;sp, d1&gt; -&gt; &lt;n, d2&gt;.
+     */
+    private final Map<Node, MultiMap<D, D>> pathEdges = Maps.newMap();
+
+    /**
+     * End summaries. For each method, maps each entry fact to the facts
+     * that hold at the method exit.
+     */
+    private final Map<Method, MultiMap<D, D>> endSummaries = Maps.newMap();
+
+    /**
+     * For each method, maps each entry fact to the call sites and
+     * the facts at the call sites that induce the entry fact.
+     */
+    private final Map<Method, MultiMap<D, CallFact<Node, D>>> incoming = Maps.newMap();
+
+    /**
+     * Return edges of each call site.
+     */
+    private final MultiMap<Node, ReturnEdge<Node>> returnEdges = Maps.newMultiMap();
+
+    private final Queue<PathEdge<Node, D>> workList = new ArrayDeque<>();
+
+    public IFDSSolver(IFDSProblem<Node, D> problem, ICFG<Method, Node> icfg) {
+        this.problem = problem;
+        this.icfg = icfg;
+        this.zero = problem.zeroValue();
+    }
+
+    /**
+     * Solves the problem.
+     *
+     * @return the facts that hold at each node. The IN fact of a node
+     * contains the facts that hold before the node, and the OUT fact
+     * contains the facts that flow out of the node to its successors
+     * in the same method. The zero fact is excluded from the result.
+     */
+    public DataflowResult<Node, Set<D>> solve() {
+        initialize();
+        doSolve();
+        return collectResult();
+    }
+
+    private void initialize() {
+        for (Node node : icfg) {
+            for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                if (edge instanceof ReturnEdge<Node> returnEdge) {
+                    returnEdges.put(returnEdge.getCallSite(), returnEdge);
+                }
+            }
+        }
+        icfg.entryMethods().forEach(method ->
+                propagate(zero, icfg.getEntryOf(method), zero));
+    }
+
+    private void doSolve() {
+        while (!workList.isEmpty()) {
+            PathEdge<Node, D> pathEdge = workList.poll();
+            D d1 = pathEdge.d1();
+            Node node = pathEdge.node();
+            D d2 = pathEdge.d2();
+            if (icfg.isCallSite(node)) {
+                processCall(d1, node, d2);
+            } else {
+                Method method = icfg.getContainingMethodOf(node);
+                if (node.equals(icfg.getExitOf(method))) {
+                    processExit(d1, method, node, d2);
+                }
+                for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                    if (edge instanceof NormalEdge<Node> normalEdge) {
+                        FlowFunction<D> flow = problem.getNormalFlowFunction(normalEdge);
+                        for (D d3 : apply(flow, d2)) {
+                            propagate(d1, edge.getTarget(), d3);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void processCall(D d1, Node callSite, D d2) {
+        for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(callSite)) {
+            if (edge instanceof CallEdge<Node> callEdge) {
+                Node entry = callEdge.getTarget();
+                Method callee = icfg.getContainingMethodOf(entry);
+                FlowFunction<D> flow = problem.getCallFlowFunction(callEdge);
+                for (D d3 : apply(flow, d2)) {
+                    propagate(d3, entry, d3);
+                    incoming.computeIfAbsent(callee, m -> Maps.newMultiMap())
+                            .put(d3, new CallFact<>(callSite, d2));
+                    // apply the summaries computed so far
+                    Node exit = icfg.getExitOf(callee);
+                    for (D d4 : getEndSummary(callee, d3)) {
+                        for (ReturnEdge<Node> returnEdge : returnEdges.get(callSite)) {
+                            if (returnEdge.getSource().equals(exit)) {
+                                FlowFunction<D> retFlow =
+                                        problem.getReturnFlowFunction(returnEdge);
+                                for (D d5 : apply(retFlow, d4)) {
+                                    propagate(d1, returnEdge.getTarget(), d5);
+                                }
+                            }
+                        }
+                    }
+                }
+            } else if (edge instanceof CallToReturnEdge<Node> callToReturnEdge) {
+                FlowFunction<D> flow =
+                        problem.getCallToReturnFlowFunction(callToReturnEdge);
+                for (D d3 : apply(flow, d2)) {
+                    propagate(d1, edge.getTarget(), d3);
+                }
+            }
+        }
+    }
+
+    private void processExit(D d1, Method method, Node exit, D d2) {
+        if (!endSummaries.computeIfAbsent(method, m -> Maps.newMultiMap())
+                .put(d1, d2)) {
+            return;
+        }
+        MultiMap<D, CallFact<Node, D>> callFacts = incoming.get(method);
+        if (callFacts == null) {
+            return;
+        }
+        for (CallFact<Node, D> callFact : callFacts.get(d1)) {
+            Node callSite = callFact.callSite();
+            Set<D> callerEntryFacts = pathEdges.get(callSite).get(callFact.fact());
+            for (ReturnEdge<Node> returnEdge : returnEdges.get(callSite)) {
+                if (returnEdge.getSource().equals(exit)) {
+                    FlowFunction<D> flow = problem.getReturnFlowFunction(returnEdge);
+                    for (D d5 : apply(flow, d2)) {
+                        for (D d3 : callerEntryFacts) {
+                            propagate(d3, returnEdge.getTarget(), d5);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private Set<D> getEndSummary(Method method, D entryFact) {
+        MultiMap<D, D> summary = endSummaries.get(method);
+        return summary == null ? Set.of() : summary.get(entryFact);
+    }
+
+    /**
+     * Applies the flow function on given fact. The zero fact is always
+     * propagated.
+     */
+    private Set<D> apply(FlowFunction<D> flow, D fact) {
+        Set<D> result = flow.apply(fact);
+        if (fact.equals(zero) && !result.contains(zero)) {
+            result = Sets.newHybridSet(result);
+            result.add(zero);
+        }
+        return result;
+    }
+
+    private void propagate(D d1, Node node, D d2) {
+        if (pathEdges.computeIfAbsent(node, n -> Maps.newMultiMap())
+                .put(d2, d1)) {
+            workList.add(new PathEdge<>(d1, node, d2));
+        }
+    }
+
+    private DataflowResult<Node, Set<D>> collectResult() {
+        DataflowResult<Node, Set<D>> result = new DataflowResult<>();
+        for (Node node : icfg) {
+            Set<D> in = Sets.newHybridSet();
+            Set<D> out = Sets.newHybridSet();
+            MultiMap<D, D> edges = pathEdges.get(node);
+            if (edges != null) {
+                for (D fact : edges.keySet()) {
+                    in.add(fact);
+                    for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(node)) {
+                        if (edge instanceof NormalEdge<Node> normalEdge) {
+                            out.addAll(problem.getNormalFlowFunction(normalEdge)
+                                    .apply(fact));
+                        } else if (edge instanceof CallToReturnEdge<Node> callToReturnEdge) {
+                            out.addAll(problem.getCallToReturnFlowFunction(callToReturnEdge)
+                                    .apply(fact));
+                        }
+                    }
+                }
+            }
+            in.remove(zero);
+            out.remove(zero);
+            result.setInFact(node, in);
+            result.setOutFact(node, out);
+        }
+        return result;
+    }
+
+    private record PathEdge<Node, D>(D d1, Node node, D d2) {
+    }
+
+    private record CallFact<Node, D>(Node callSite, D fact) {
+    }
+}
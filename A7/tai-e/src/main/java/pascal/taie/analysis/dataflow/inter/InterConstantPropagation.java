@@ -24,32 +24,32 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.World;
 import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.CPHeap;
 import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
 import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.graph.cfg.CFG;
 import pascal.taie.analysis.graph.cfg.CFGBuilder;
 import pascal.taie.analysis.graph.icfg.CallEdge;
 import pascal.taie.analysis.graph.icfg.CallToReturnEdge;
 import pascal.taie.analysis.graph.icfg.NormalEdge;
 import pascal.taie.analysis.graph.icfg.ReturnEdge;
-import pascal.taie.analysis.pta.PointerAnalysisResult;
-import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.CIPointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultIO;
 import pascal.taie.config.AnalysisConfig;
 import pascal.taie.ir.IR;
 import pascal.taie.ir.exp.InvokeExp;
-import pascal.taie.ir.exp.StaticFieldAccess;
 import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.proginfo.FieldRef;
 import pascal.taie.ir.stmt.Invoke;
-import pascal.taie.ir.stmt.LoadField;
 import pascal.taie.ir.stmt.Stmt;
-import pascal.taie.language.classes.JClass;
-import pascal.taie.language.classes.JField;
+import pascal.taie.ir.stmt.StoreArray;
+import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.collection.Pair;
 
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /**
  * Implementation of interprocedural constant propagation for int values.
@@ -61,67 +61,47 @@ public class InterConstantPropagation extends
 
     private final ConstantPropagation cp;
 
-    public static PointerAnalysisResult pta;
-    public static Map<Obj, Set<Var>> objToVar = new HashMap<>();
-    public static Map<Var, Set<Var>> varAliasMap = new HashMap<>();
-    public static Map<Pair<?, FieldRef>, Value> instanceManager = new HashMap<>();
-    //This is the map maintaining instance values
-    public static Map<Pair<?, Value>, Value> arrayManager = new HashMap<>();
-    //This is the map maintaining array values
-    public static Map<Pair<JClass, JField>, Value> staticValManager = new HashMap<>();
-    //This is the map maintaining static field values
-    //K1: JClass, K2: JField, V: Value
-
-     public static Map<Pair<String, FieldRef>, Value> varManager = new HashMap<>();
-    // This is the map maintaining variable values, which won't work (Notice!)
-    public static Map<Pair<JClass, JField>, Set<LoadField>> staticLoadFields = new HashMap<>();
+    /**
+     * Heap abstraction of the current run, which is created in
+     * {@link #initialize()} and released in {@link #finish()}.
+     */
+    private CPHeap heap;
 
     public InterConstantPropagation(AnalysisConfig config) {
         super(config);
         cp = new ConstantPropagation(new AnalysisConfig(ConstantPropagation.ID));
-        cp.interCP = this;
     }
 
     @Override
     protected void initialize() {
-        String ptaId = getOptions().getString("pta");
-        pta = World.get().getResult(ptaId);
-        // You can do initialization work here
-
-        // We generate inverse map from object to var
-        for(Var var : pta.getVars()){
-            for(Obj obj : pta.getPointsToSet(var)){
-                Set<Var> s = objToVar.getOrDefault(obj, new HashSet<>());
-                s.add(var);
-                objToVar.put(obj, s);
-            }
-        }
+        // reuse the result file of an earlier pointer analysis run if given
+        String ptaFile = getOptions().getString("pta-file");
+        CIPointerAnalysisResult pta = ptaFile != null ?
+                PointerAnalysisResultIO.read(Path.of(ptaFile)) :
+                World.get().getResult(getOptions().getString("pta"));
+        heap = new CPHeap(pta, icfg.getNodes(), getIntOption(
+                "alias-cache-size", CPHeap.DEFAULT_ALIAS_CACHE_SIZE));
+        cp.setHeap(heap);
+    }
 
-        // We generate alias map from var to var
-        for(Var var_x: pta.getVars()){
-            for(Var var_y: pta.getVars()){
-                if(var_x == var_y) continue;
-                for(Obj obj: pta.getPointsToSet(var_x)) {
-                    if(pta.getPointsToSet(var_y).contains(obj)){
-                        // 2 variables are considered to be alias if they point to the same object
-                        Set<Var> s = varAliasMap.getOrDefault(var_x, new HashSet<>());
-                        s.add(var_y);
-                        varAliasMap.put(var_x, s);
-                    }
-                }
-            }
-        }
+    @Override
+    protected void finish() {
+        cp.setHeap(null);
+        heap = null;
+    }
 
-        //  Construct cache for static load field access (T.f = x)
-        icfg.getNodes().forEach(stmt -> {
-            if(stmt instanceof LoadField s && s.getFieldAccess() instanceof StaticFieldAccess access){
-                Pair<JClass, JField> qPair =
-                        new Pair<>(access.getFieldRef().getDeclaringClass(), access.getFieldRef().resolve());
-                Set<LoadField> set = staticLoadFields.getOrDefault(qPair, new HashSet<>());
-                set.add(s);
-                staticLoadFields.put(qPair, set);
-            }
-        });
+    /**
+     * Uses {@link SummarySolver} if option "summary" is true, where each
+     * method is analyzed separately for at most "summary-limit" inputs
+     * ({@link SummarySolver#DEFAULT_LIMIT} by default).
+     */
+    @Override
+    protected DataflowResult<Stmt, CPFact> solve() {
+        if (getOptions().getBooleanOrDefault("summary", false)) {
+            int limit = getIntOption("summary-limit", SummarySolver.DEFAULT_LIMIT);
+            return new SummarySolver(this, icfg, limit).solve();
+        }
+        return super.solve();
     }
 
     @Override
@@ -215,4 +195,21 @@ public class InterConstantPropagation extends
         }
         return out;
     }
+
+    @Override
+    public void transferHeap(Stmt stmt, CPFact in, Consumer<Stmt> affectedLoads) {
+        // We process store here and process load in ConstantPropagation.evaluate
+        if (stmt instanceof StoreField s) {
+            if(!ConstantPropagation.canHoldInt(s.getRValue())) return;
+            Value value = ConstantPropagation.evaluate(s.getRValue(), in, heap);
+            heap.storeField(s, value, affectedLoads);
+        }
+        if(stmt instanceof StoreArray s) {
+            if(!ConstantPropagation.canHoldInt(s.getRValue())) return;
+            Value idx = ConstantPropagation.evaluate(s.getArrayAccess().getIndex(), in, heap);
+            if (idx.isUndef()) return;
+            Value value = ConstantPropagation.evaluate(s.getRValue(), in, heap);
+            heap.storeArray(s, idx, value, affectedLoads);
+        }
+    }
 }
@@ -24,6 +24,8 @@ package pascal.taie.analysis.dataflow.inter;
 
 import pascal.taie.analysis.graph.icfg.ICFGEdge;
 
+import java.util.function.Consumer;
+
 /**
  * Template interface for defining inter-procedural data-flow analysis.
  *
@@ -71,4 +73,16 @@ public interface InterDataflowAnalysis<Node, Fact> {
      * @return the result of edge transfer function.
      */
     Fact transferEdge(ICFGEdge<Node> edge, Fact out);
+
+    /**
+     * Heap transfer function for analyses that also propagate values
+     * through the heap. The solver calls it with the IN fact of each node
+     * before {@link #transferNode}.
+     *
+     * @param affectedNodes receives the nodes that read the heap values
+     *                      changed by the transfer, which need to be
+     *                      processed again.
+     */
+    default void transferHeap(Node node, Fact in, Consumer<Node> affectedNodes) {
+    }
 }
@@ -22,35 +22,15 @@
 
 package pascal.taie.analysis.dataflow.inter;
 
-import pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation;
-import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.World;
 import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
 import pascal.taie.analysis.graph.icfg.ICFG;
-import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.ir.exp.InstanceFieldAccess;
-import pascal.taie.ir.exp.StaticFieldAccess;
-import pascal.taie.ir.exp.ArrayAccess;
-import pascal.taie.ir.proginfo.FieldRef;
-import pascal.taie.ir.stmt.Stmt;
-import pascal.taie.ir.stmt.StoreArray;
-import pascal.taie.ir.stmt.StoreField;
-import pascal.taie.language.classes.JClass;
-import pascal.taie.language.classes.JField;
-import pascal.taie.util.collection.Pair;
-import pascal.taie.util.collection.SetQueue;
-
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Set;
-import java.util.stream.Collectors;
-
-import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
-import pascal.taie.analysis.graph.icfg.*;
-import pascal.taie.ir.exp.Var;
-import static pascal.taie.analysis.dataflow.inter.InterConstantPropagation.*;
-import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.*;
+import pascal.taie.analysis.graph.icfg.IndexedICFG;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Solver for inter-procedural data-flow analysis.
@@ -65,7 +45,7 @@ class InterSolver<Method, Node, Fact> {
 
     private DataflowResult<Node, Fact> result;
 
-    private Queue<Node> workList;
+    private InterWorkList<Method, Node> workList;
 
     InterSolver(InterDataflowAnalysis<Node, Fact> analysis,
                 ICFG<Method, Node> icfg) {
@@ -83,6 +63,7 @@ class InterSolver<Method, Node, Fact> {
     private void initialize() {
         // Done - finish me
         for(Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
             result.setOutFact(node, analysis.newInitialFact());
         }
         icfg.entryMethods().forEach(method -> {
@@ -92,112 +73,48 @@ class InterSolver<Method, Node, Fact> {
 
     private void doSolve() {
         // Done - finish me
-        workList = new LinkedList<>(icfg.getNodes());
+        IndexedICFG<Method, Node> graph = IndexedICFG.freezeBottomUp(
+                icfg, World.get().getResult(CallGraphBuilder.ID));
+        workList = new InterWorkList<>(graph);
+        int n = graph.getNumberOfNodes();
+        List<Fact> inFacts = new ArrayList<>(n);
+        List<Fact> outFacts = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            inFacts.add(result.getInFact(graph.getNode(i)));
+            outFacts.add(result.getOutFact(graph.getNode(i)));
+            workList.add(i);
+        }
+        // Number of changes of the OUT fact of each node, and for each
+        // in-edge slot of the indexed ICFG, the version of the source OUT
+        // fact that was last transferred along it.
+        // As facts only grow during solving, the IN fact of a node is kept
+        // across visits and already contains the facts transferred before,
+        // so only the edges whose source OUT has changed since their last
+        // transfer are transferred and met into it again.
+        int[] outVersions = new int[n];
+        int[] transferredVersions = new int[graph.getNumberOfEdges()];
+        Arrays.fill(transferredVersions, -1);
         while (!workList.isEmpty()) {
-            Node node = workList.poll();
-//            System.out.println("Processing node: " + node);
-            CPFact in = new CPFact();
-            CPFact out = (CPFact) result.getOutFact(node);
-            for(ICFGEdge<Node> edge : icfg.getInEdgesOf(node)) {
-                analysis.meetInto(analysis.transferEdge(edge, result.getOutFact(edge.getSource())), (Fact) in);
-            }
-
-            // We process store here and process load in ConstantPropagation.evaluate
-            // Process here to update alias map
-            processStoreField((Stmt) node, in);
-            processStoreArray((Stmt) node, in);
-
-            if(analysis.transferNode(node, (Fact)in, (Fact)out)) {
-                workList.addAll(icfg.getSuccsOf(node));
+            int node = workList.pollIndex();
+            Fact in = inFacts.get(node);
+            Fact out = outFacts.get(node);
+            for (int e = graph.getInStart(node); e < graph.getInEnd(node); ++e) {
+                int source = graph.getInSource(e);
+                if (transferredVersions[e] != outVersions[source]) {
+                    transferredVersions[e] = outVersions[source];
+                    analysis.meetInto(analysis.transferEdge(
+                            graph.getInEdge(e), outFacts.get(source)), in);
+                }
             }
 
-            result.setInFact(node, (Fact)in);
-            result.setOutFact(node, (Fact)out);
-        }
-    }
-    void processStoreField(Stmt stmt, CPFact in) {
-        if (stmt instanceof StoreField s) {
-            if(!ConstantPropagation.canHoldInt(s.getRValue())) return;
-            // Instance store Field: x.f = y
-            if(s.getFieldAccess() instanceof InstanceFieldAccess instanceExp) {
-//                 ========Version 1: Use instanceManager ===================
-                Var base = instanceExp.getBase();
-                pta.getPointsToSet(base).forEach( obj ->
-                        {
-                            Pair<?,FieldRef> qPair = new Pair<>(obj, s.getFieldRef());
-                            Value newVal = ConstantPropagation.evaluate(s.getRValue(), in);
-                            Value oldVal = instanceManager.getOrDefault(qPair, Value.getUndef());
-                            newVal = meetValue(newVal, oldVal);
-                            instanceManager.put(qPair, newVal);
-                            if(!newVal.equals(oldVal)) {
-                                Set<Var> aliasVars = varAliasMap.getOrDefault(base, new HashSet<>());
-                                aliasVars.forEach(var -> {
-                                    var.getLoadFields().stream()
-                                            .filter(loadField -> loadField.getFieldRef().equals(s.getFieldRef()))
-                                            // Only add alias variable load statements where we are operating on the same field to the worklist
-                                            .forEach(loadField -> {workList.add((Node) loadField);});
-                                });
-                            }
-                        }
-                );
-            }
-                // ========Version 2: Use varManager(Won't work) ===================
-//                Var base = instanceExp.getBase();
-//                Pair<String, FieldRef> qPair_var = new Pair<>(base.getName(), s.getFieldRef());
-//                Value newVal_var = ConstantPropagation.evaluate(s.getRValue(), in);
-//                Value oldVal_var = varManager.getOrDefault(qPair_var, Value.getUndef());
-//                newVal_var = meetValue(newVal_var, oldVal_var);
-//                varManager.put(qPair_var, newVal_var);
-//                if (!newVal_var.equals(oldVal_var)) {
-//                    Set<Var> aliasVars = varAliasMap.getOrDefault(base, new HashSet<>());
-//                    aliasVars.forEach(var -> {
-//                        var.getLoadFields().stream()
-//                                .filter(loadField -> loadField.getFieldRef().equals(s.getFieldRef()))
-//                                // Only add alias variable load statements where we are operating on the same field to the worklist
-//                                .forEach(loadField -> {
-//                                    workList.add((Node) loadField);
-//                                });
-//                    });
-//                }
-//            }
+            analysis.transferHeap(graph.getNode(node), in, workList::add);
 
-            // Static field Store: T.f = x
-            if(s.getFieldAccess() instanceof StaticFieldAccess staticExp) {
-                JClass jClass = staticExp.getFieldRef().getDeclaringClass();
-                Pair<JClass, JField> qPair = new Pair<>(jClass, staticExp.getFieldRef().resolve());
-                Value newVal = ConstantPropagation.evaluate(s.getRValue(), in);
-                Value oldVal = staticValManager.getOrDefault(qPair, Value.getUndef());
-                newVal = meetValue(newVal, oldVal);
-                staticValManager.put(qPair, newVal);
-                if(!newVal.equals(oldVal)) {
-                    staticLoadFields.getOrDefault(qPair, new HashSet<>()).forEach(loadField -> {
-                        workList.add((Node) loadField);
-                    });
+            if(analysis.transferNode(graph.getNode(node), in, out)) {
+                ++outVersions[node];
+                for (int e = graph.getOutStart(node); e < graph.getOutEnd(node); ++e) {
+                    workList.add(graph.getOutTarget(e));
                 }
             }
         }
     }
-
-    void processStoreArray(Stmt stmt, CPFact in) {
-        if(stmt instanceof StoreArray s) {
-            if(!ConstantPropagation.canHoldInt(s.getRValue())) return;
-            ArrayAccess arrayAccess = s.getArrayAccess();
-            Value idx = ConstantPropagation.evaluate(arrayAccess.getIndex(), in);
-            if (idx.isUndef()) return ;
-            Var base = arrayAccess.getBase();
-            pta.getPointsToSet(base).forEach(obj -> {
-                Pair<?,Value> qPair = new Pair<>(obj, idx);
-                Value newVal = ConstantPropagation.evaluate(s.getRValue(), in);
-                Value oldVal = arrayManager.getOrDefault(qPair, Value.getUndef());
-                newVal = meetValue(newVal, oldVal);
-                arrayManager.put(qPair, newVal);
-                if(!newVal.equals(oldVal)) {
-                    Set<Var> aliasVars = varAliasMap.getOrDefault(base, new HashSet<>());
-                    aliasVars.forEach(var -> {
-                        var.getLoadArrays().forEach(loadArray -> {workList.add((Node) loadArray);});
-                    });
-                }
-            });
-        }
-    }
 }
@@ -0,0 +1,126 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.graph.icfg.IndexedICFG;
+
+/**
+ * Work list of {@link InterSolver}, which contains each node at most once,
+ * and always polls the node with the highest priority, i.e., the node
+ * with the smallest id in the {@link IndexedICFG}. With the ids given by
+ * {@link IndexedICFG#freezeBottomUp}, the nodes of callees are processed
+ * before those of their callers, so that callees stabilize before their
+ * return edges are consumed, and each method is processed in the order
+ * of its control flow.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ */
+class InterWorkList<Method, Node> {
+
+    /**
+     * The ICFG whose node ids are the priorities of the nodes
+     * (smaller value means higher priority).
+     */
+    private final IndexedICFG<Method, Node> indexedICFG;
+
+    private final boolean[] inList;
+
+    /**
+     * Binary min-heap of priorities of the nodes in this list.
+     */
+    private final int[] heap;
+
+    private int size = 0;
+
+    InterWorkList(IndexedICFG<Method, Node> indexedICFG) {
+        this.indexedICFG = indexedICFG;
+        inList = new boolean[indexedICFG.getNumberOfNodes()];
+        heap = new int[indexedICFG.getNumberOfNodes()];
+    }
+
+    /**
+     * Adds a node to this list.
+     *
+     * @return true if the node is added, or false if it is already in
+     * this list or it is not a node of the ICFG.
+     */
+    boolean add(Node node) {
+        int p = indexedICFG.getId(node);
+        return p != -1 && add(p);
+    }
+
+    /**
+     * Adds the node of given index to this list.
+     *
+     * @return true if the node is added, or false if it is already in
+     * this list.
+     */
+    boolean add(int p) {
+        if (inList[p]) {
+            return false;
+        }
+        inList[p] = true;
+        // sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= p) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = p;
+        return true;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes the node with the highest priority and returns its index.
+     */
+    int pollIndex() {
+        int p = heap[0];
+        int last = heap[--size];
+        // sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        inList[p] = false;
+        return p;
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.analysis.graph.icfg.IndexedICFG;
+import pascal.taie.util.collection.Maps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Parallel solver for inter-procedural data-flow analysis, which
+ * reaches the same fixed point as {@link InterSolver}.
+ * <p>
+ * Each method has its own work list, and is processed by at most one
+ * worker thread at a time, so the facts of the nodes of a method are
+ * only accessed by the thread that processes the method. The facts
+ * transferred along call and return edges, and the requests of
+ * processing the nodes affected by heap updates, are sent as messages
+ * to the methods that contain the target nodes.
+ * <p>
+ * The analysis must be thread-safe except for the facts of the nodes,
+ * e.g., its heap abstraction must allow concurrent updates, and its
+ * transfer functions of call and return edges must return new facts.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ * @param <Fact>   type of data-flow facts
+ */
+class ParallelInterSolver<Method, Node, Fact> {
+
+    private final InterDataflowAnalysis<Node, Fact> analysis;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final int threads;
+
+    private DataflowResult<Node, Fact> result;
+
+    private Map<Node, MethodTask> tasks;
+
+    /**
+     * Number of changes of the OUT fact of each node, and whether each
+     * node has been processed. The entries of a node are only accessed
+     * by the task of its method.
+     */
+    private int[] outVersions;
+
+    private boolean[] visited;
+
+    /**
+     * For each in-edge slot of the indexed ICFG, the version of the source
+     * OUT fact that was last transferred along it. The entries of local
+     * edges are only accessed by the task of their target.
+     */
+    private int[] transferredVersions;
+
+    private IndexedICFG<Method, Node> graph;
+
+    private ExecutorService executor;
+
+    /**
+     * Number of tasks that are scheduled or running, plus one for the
+     * initial scheduling. The solving terminates when it reaches zero.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final CountDownLatch done = new CountDownLatch(1);
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    ParallelInterSolver(InterDataflowAnalysis<Node, Fact> analysis,
+                        ICFG<Method, Node> icfg, int threads) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.threads = threads;
+    }
+
+    DataflowResult<Node, Fact> solve() {
+        result = new DataflowResult<>();
+        initialize();
+        doSolve();
+        return result;
+    }
+
+    private void initialize() {
+        for (Node node : icfg) {
+            result.setInFact(node, analysis.newInitialFact());
+            result.setOutFact(node, analysis.newInitialFact());
+        }
+        icfg.entryMethods().forEach(method -> {
+            Node entry = icfg.getEntryOf(method);
+            result.setOutFact(entry, analysis.newBoundaryFact(entry));
+        });
+        graph = IndexedICFG.freezeBottomUp(
+                icfg, World.get().getResult(CallGraphBuilder.ID));
+        int n = graph.getNumberOfNodes();
+        outVersions = new int[n];
+        visited = new boolean[n];
+        transferredVersions = new int[graph.getNumberOfEdges()];
+        Arrays.fill(transferredVersions, -1);
+        // assign each node to the task of its method
+        Map<Method, MethodTask> methodTasks = Maps.newMap();
+        tasks = Maps.newMap(n);
+        for (int i = 0; i < n; ++i) {
+            Node node = graph.getNode(i);
+            MethodTask task = methodTasks.computeIfAbsent(
+                    icfg.getContainingMethodOf(node), m -> new MethodTask());
+            task.addInitial(i);
+            tasks.put(node, task);
+        }
+    }
+
+    private void doSolve() {
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "inter-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            pending.set(1);
+            tasks.values().stream().distinct().forEach(MethodTask::schedule);
+            finishTask();
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while solving", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException re) {
+            throw re;
+        } else if (e instanceof Error err) {
+            throw err;
+        } else if (e != null) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void finishTask() {
+        if (pending.decrementAndGet() == 0) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Sends a fact to the method containing given node.
+     *
+     * @param fact the fact to be met into the IN fact of the node,
+     *             or null if the node only needs to be processed again.
+     */
+    private void send(Node node, Fact fact) {
+        MethodTask task = tasks.get(node);
+        if (task != null) {
+            task.inbox.add(new Message<>(node, fact));
+            task.schedule();
+        }
+    }
+
+    /**
+     * @return true if the edges of given kind connect nodes in the same method.
+     */
+    private static boolean isLocal(byte kind) {
+        return kind == IndexedICFG.NORMAL || kind == IndexedICFG.CALL_TO_RETURN;
+    }
+
+    private record Message<Node, Fact>(Node node, Fact fact) {
+    }
+
+    /**
+     * Processes the nodes of a method.
+     */
+    private class MethodTask implements Runnable {
+
+        private final Queue<Message<Node, Fact>> inbox = new ConcurrentLinkedQueue<>();
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Work list of this method. The i-th bit represents the node
+         * whose index is (first + i).
+         */
+        private final BitSet workList = new BitSet();
+
+        private int first = -1;
+
+        private void addInitial(int index) {
+            if (first == -1) {
+                first = index;
+            }
+            add(index);
+        }
+
+        private void add(int index) {
+            workList.set(index - first);
+        }
+
+        private void schedule() {
+            // the sender of a message always runs in a pending task (or
+            // in the initial scheduling), thus the counter cannot reach
+            // zero before it is increased here
+            if (scheduled.compareAndSet(false, true)) {
+                pending.incrementAndGet();
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                do {
+                    receive();
+                    for (int i = workList.nextSetBit(0); i != -1;
+                         i = workList.nextSetBit(0)) {
+                        workList.clear(i);
+                        process(first + i);
+                        receive();
+                    }
+                    scheduled.set(false);
+                    // re-check the messages that arrived after the last
+                    // receive(), whose senders saw this task scheduled
+                } while (!inbox.isEmpty() && scheduled.compareAndSet(false, true));
+                finishTask();
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+                done.countDown();
+            }
+        }
+
+        private void receive() {
+            Message<Node, Fact> message;
+            while ((message = inbox.poll()) != null) {
+                if (message.fact() != null) {
+                    analysis.meetInto(message.fact(),
+                            result.getInFact(message.node()));
+                }
+                add(graph.getId(message.node()));
+            }
+        }
+
+        private void process(int index) {
+            Node node = graph.getNode(index);
+            Fact in = result.getInFact(node);
+            Fact out = result.getOutFact(node);
+            for (int e = graph.getInStart(index); e < graph.getInEnd(index); ++e) {
+                if (isLocal(graph.getInKind(e))) {
+                    int source = graph.getInSource(e);
+                    if (transferredVersions[e] != outVersions[source]) {
+                        transferredVersions[e] = outVersions[source];
+                        analysis.meetInto(analysis.transferEdge(graph.getInEdge(e),
+                                result.getOutFact(graph.getNode(source))), in);
+                    }
+                }
+            }
+            analysis.transferHeap(node, in, affected -> {
+                if (tasks.get(affected) == this) {
+                    add(graph.getId(affected));
+                } else {
+                    send(affected, null);
+                }
+            });
+            boolean changed = analysis.transferNode(node, in, out);
+            if (changed) {
+                ++outVersions[index];
+            }
+            if (changed || !visited[index]) {
+                visited[index] = true;
+                for (int e = graph.getOutStart(index); e < graph.getOutEnd(index); ++e) {
+                    if (!isLocal(graph.getOutKind(e))) {
+                        ICFGEdge<Node> edge = graph.getOutEdge(e);
+                        send(edge.getTarget(), analysis.transferEdge(edge, out));
+                    } else if (changed) {
+                        add(graph.getOutTarget(e));
+                    }
+                }
+            }
+        }
+    }
+}
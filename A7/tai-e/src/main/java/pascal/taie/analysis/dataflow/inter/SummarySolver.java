@@ -0,0 +1,361 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.inter;
+
+import pascal.taie.analysis.dataflow.analysis.constprop.CPFact;
+import pascal.taie.analysis.dataflow.analysis.constprop.Value;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.graph.cfg.CFG;
+import pascal.taie.analysis.graph.cfg.CFGBuilder;
+import pascal.taie.analysis.graph.icfg.CallEdge;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGEdge;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.MultiMap;
+import pascal.taie.util.collection.SetQueue;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import static pascal.taie.analysis.dataflow.analysis.constprop.ConstantPropagation.meetValue;
+
+/**
+ * Summary-based solver for {@link InterConstantPropagation}.
+ * <p>
+ * Instead of propagating facts through the ICFG, where all calling
+ * contexts of a method are merged, this solver analyzes each method
+ * separately for each distinct abstract input, i.e., the {@link CPFact}
+ * on its parameters produced by
+ * {@link InterConstantPropagation#transferCallEdge}, and uses the
+ * resulting return {@link Value} as the summary of the method for that
+ * input. Calls with the same input share the summary instead of
+ * re-analyzing the callee.
+ * <p>
+ * Each method is analyzed separately for at most {@code limit} inputs.
+ * Further inputs of the method are merged into a single widened input,
+ * where each parameter on which the inputs disagree becomes NAC, thus
+ * the number of analyzed inputs is bounded even for recursive methods
+ * whose arguments change on each call.
+ * <p>
+ * The solver is driven by a work list of (method, input) pairs instead of
+ * the Java stack: a call to an input that has not been analyzed uses its
+ * current summary (initially UNDEF), and when a summary changes, the call
+ * sites that use it are processed again. Heap values are handled in the
+ * same way, i.e., the loads affected by a store are processed again for
+ * all inputs of their methods. The result of each node is the meet of its
+ * facts under the inputs that are reachable from the entry methods.
+ */
+class SummarySolver {
+
+    /**
+     * Default maximum number of inputs that are analyzed separately
+     * for each method.
+     */
+    static final int DEFAULT_LIMIT = 3;
+
+    private final InterConstantPropagation analysis;
+
+    private final ICFG<JMethod, Stmt> icfg;
+
+    private final int limit;
+
+    /**
+     * Method -> analyzed inputs of the method.
+     */
+    private final Map<JMethod, MethodInputs> inputs = Maps.newMap();
+
+    /**
+     * Inputs that have nodes to be processed.
+     */
+    private final Queue<Input> workList = new ArrayDeque<>();
+
+    SummarySolver(InterConstantPropagation analysis,
+                  ICFG<JMethod, Stmt> icfg, int limit) {
+        this.analysis = analysis;
+        this.icfg = icfg;
+        this.limit = limit;
+    }
+
+    DataflowResult<Stmt, CPFact> solve() {
+        List<Input> entries = icfg.entryMethods()
+                .map(method -> getInput(method,
+                        analysis.newBoundaryFact(icfg.getEntryOf(method))))
+                .toList();
+        while (!workList.isEmpty()) {
+            Input input = workList.poll();
+            input.inWorkList = false;
+            analyze(input);
+        }
+        return collectResult(entries);
+    }
+
+    /**
+     * @return the analyzed input of the method for given fact, which is
+     * created (and added to the work list) if absent.
+     */
+    private Input getInput(JMethod method, CPFact fact) {
+        MethodInputs methodInputs = inputs.computeIfAbsent(method,
+                m -> new MethodInputs());
+        Input input = methodInputs.exact.get(fact);
+        if (input != null) {
+            return input;
+        }
+        if (methodInputs.exact.size() < limit) {
+            input = newInput(method, fact);
+            methodInputs.exact.put(fact, input);
+            return input;
+        }
+        // the method has too many inputs, merge the fact into
+        // the widened input of the method
+        input = methodInputs.widened;
+        if (input == null) {
+            input = newInput(method, fact.copy());
+            methodInputs.widened = input;
+        } else {
+            CPFact old = input.fact.copy();
+            analysis.meetInto(fact, input.fact);
+            if (!input.fact.equals(old)) {
+                Stmt entry = input.cfg.getEntry();
+                analysis.meetInto(input.fact, input.inFacts.get(entry));
+                schedule(input, entry);
+            }
+        }
+        return input;
+    }
+
+    private Input newInput(JMethod method, CPFact fact) {
+        Input input = new Input(method, fact);
+        inputs.get(method).all.add(input);
+        for (Stmt node : input.cfg) {
+            input.inFacts.put(node, analysis.newInitialFact());
+            input.outFacts.put(node, analysis.newInitialFact());
+            schedule(input, node);
+        }
+        analysis.meetInto(fact, input.inFacts.get(input.cfg.getEntry()));
+        return input;
+    }
+
+    /**
+     * Adds given node of given input to the work list.
+     */
+    private void schedule(Input input, Stmt node) {
+        input.nodes.add(node);
+        if (!input.inWorkList) {
+            input.inWorkList = true;
+            workList.add(input);
+        }
+    }
+
+    /**
+     * Processes the pending nodes of given input until they are stable,
+     * and then updates the summary of the input.
+     */
+    private void analyze(Input input) {
+        CFG<Stmt> cfg = input.cfg;
+        while (!input.nodes.isEmpty()) {
+            Stmt node = input.nodes.poll();
+            CPFact in = input.inFacts.get(node);
+            for (Stmt pred : cfg.getPredsOf(node)) {
+                analysis.meetInto(input.outFacts.get(pred), in);
+            }
+            analysis.transferHeap(node, in, this::processAffectedLoad);
+            CPFact out = input.outFacts.get(node);
+            boolean outChanged = icfg.isCallSite(node)
+                    ? transferCallNode(input, (Invoke) node, in, out)
+                    : analysis.transferNonCallNode(node, in, out);
+            if (outChanged) {
+                cfg.getSuccsOf(node).forEach(input.nodes::add);
+            }
+        }
+        CPFact exitOut = input.outFacts.get(cfg.getExit());
+        Value value = Value.getUndef();
+        for (Var ret : input.method.getIR().getReturnVars()) {
+            value = meetValue(value, exitOut.get(ret));
+        }
+        if (!value.equals(input.summary)) {
+            input.summary = value;
+            input.callers.forEach(this::schedule);
+        }
+    }
+
+    /**
+     * Processes a load whose heap value has been changed
+     * again for all inputs of its method.
+     */
+    private void processAffectedLoad(Stmt load) {
+        MethodInputs methodInputs = inputs.get(icfg.getContainingMethodOf(load));
+        if (methodInputs != null) {
+            methodInputs.all.forEach(input -> schedule(input, load));
+        }
+    }
+
+    /**
+     * Transfers a call node by applying the summaries of its callees.
+     */
+    private boolean transferCallNode(Input caller, Invoke callSite,
+                                     CPFact in, CPFact out) {
+        Value value = Value.getUndef();
+        List<Input> callees = new ArrayList<>();
+        for (ICFGEdge<Stmt> edge : icfg.getOutEdgesOf(callSite)) {
+            if (edge instanceof CallEdge<Stmt> callEdge) {
+                CPFact params = analysis.transferCallEdge(callEdge, in);
+                Input callee = getInput(callEdge.getCallee(), params);
+                callee.callers.put(caller, callSite);
+                callees.add(callee);
+                value = meetValue(value, callee.summary);
+            }
+        }
+        caller.callees.put(callSite, callees);
+        CPFact callOut = in.copy();
+        Var lValue = callSite.getLValue();
+        if (lValue != null) {
+            callOut.update(lValue, value);
+        }
+        return out.copyFrom(callOut);
+    }
+
+    /**
+     * @return the meet of the facts of the inputs that are reachable
+     * from given entry inputs through the current callees of call sites.
+     */
+    private DataflowResult<Stmt, CPFact> collectResult(List<Input> entries) {
+        DataflowResult<Stmt, CPFact> result = new DataflowResult<>();
+        Set<Input> reached = Sets.newSet();
+        reached.addAll(entries);
+        Queue<Input> queue = new ArrayDeque<>(entries);
+        while (!queue.isEmpty()) {
+            Input input = queue.poll();
+            for (Stmt node : input.cfg) {
+                meetIntoResult(result, node, input.inFacts.get(node), true);
+                meetIntoResult(result, node, input.outFacts.get(node), false);
+            }
+            input.callees.values().forEach(callees -> callees.forEach(callee -> {
+                if (reached.add(callee)) {
+                    queue.add(callee);
+                }
+            }));
+        }
+        // nodes of the methods that are never reached
+        for (Stmt node : icfg) {
+            if (result.getOutFact(node) == null) {
+                result.setInFact(node, analysis.newInitialFact());
+                result.setOutFact(node, analysis.newInitialFact());
+            }
+        }
+        return result;
+    }
+
+    private void meetIntoResult(DataflowResult<Stmt, CPFact> result,
+                                Stmt node, CPFact fact, boolean isIn) {
+        CPFact target = isIn ? result.getInFact(node) : result.getOutFact(node);
+        if (target == null) {
+            target = analysis.newInitialFact();
+            if (isIn) {
+                result.setInFact(node, target);
+            } else {
+                result.setOutFact(node, target);
+            }
+        }
+        analysis.meetInto(fact, target);
+    }
+
+    /**
+     * Analyzed inputs of a method.
+     */
+    private static class MethodInputs {
+
+        /**
+         * Fact -> input, for the inputs that are analyzed separately.
+         */
+        private final Map<CPFact, Input> exact = Maps.newHybridMap();
+
+        /**
+         * The input that merges all other facts, or null if
+         * the method has no more than {@code limit} inputs.
+         */
+        private Input widened;
+
+        /**
+         * All analyzed inputs of the method.
+         */
+        private final List<Input> all = new ArrayList<>();
+    }
+
+    /**
+     * A method analyzed under an abstract input, together with
+     * the facts of its nodes and its summary.
+     */
+    private static class Input {
+
+        private final JMethod method;
+
+        private final CFG<Stmt> cfg;
+
+        /**
+         * Facts of the parameters, which only change
+         * if this is the widened input of the method.
+         */
+        private final CPFact fact;
+
+        private final Map<Stmt, CPFact> inFacts = Maps.newMap();
+
+        private final Map<Stmt, CPFact> outFacts = Maps.newMap();
+
+        /**
+         * Nodes to be processed.
+         */
+        private final Queue<Stmt> nodes = new SetQueue<>();
+
+        private boolean inWorkList;
+
+        /**
+         * The return value.
+         */
+        private Value summary = Value.getUndef();
+
+        /**
+         * Input of caller -> call sites that use the summary.
+         */
+        private final MultiMap<Input, Stmt> callers = Maps.newMultiMap();
+
+        /**
+         * Call site -> inputs of callees in its last transfer.
+         */
+        private final Map<Invoke, List<Input>> callees = Maps.newHybridMap();
+
+        private Input(JMethod method, CPFact fact) {
+            this.method = method;
+            this.cfg = method.getIR().getResult(CFGBuilder.ID);
+            this.fact = fact;
+        }
+    }
+}
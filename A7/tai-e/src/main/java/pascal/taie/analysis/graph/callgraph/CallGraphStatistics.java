@@ -0,0 +1,214 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.callgraph;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import pascal.taie.config.Configs;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.AnalysisException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes statistics of a call graph, i.e., the most megamorphic call
+ * sites, fan-in/fan-out histograms, the largest strongly connected
+ * components and the contribution of each builder phase, and dumps them
+ * to a JSON file so that they can be compared across runs.
+ */
+public class CallGraphStatistics {
+
+    private static final Logger logger = LogManager.getLogger(CallGraphStatistics.class);
+
+    /**
+     * Number of call sites and SCCs listed in the report.
+     */
+    private static final int TOP_N = 20;
+
+    /**
+     * Key of the phases stored in the result of the pointer analysis
+     * which builds the call graph.
+     */
+    public static final String PHASES = "cg-phases";
+
+    private CallGraphStatistics() {
+    }
+
+    /**
+     * Time and call edges contributed by a phase of call graph builder.
+     */
+    public static class Phase {
+
+        private final String name;
+
+        private long time;
+
+        private int edges;
+
+        public Phase(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records a run of this phase.
+         *
+         * @param time  the time (in nanoseconds) spent by the run
+         * @param edges the number of new call edges added by the run
+         */
+        public void record(long time, int edges) {
+            this.time += time;
+            this.edges += edges;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the total time (in nanoseconds) spent by this phase.
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * @return the total number of call edges added by this phase.
+         */
+        public int getEdges() {
+            return edges;
+        }
+    }
+
+    /**
+     * Dumps the statistics of given call graph in JSON format.
+     *
+     * @param callGraph the call graph
+     * @param phases    the phases of the builder of the call graph
+     * @param output    path of the output file, if it is null, then
+     *                  the statistics are dumped to output directory
+     */
+    static void dump(CallGraph<Invoke, JMethod> callGraph,
+                     Collection<Phase> phases, String output) {
+        if (output == null) {
+            output = new File(Configs.getOutputDir(),
+                    callGraph.entryMethods()
+                            .map(m -> m.getDeclaringClass() + "." + m.getName())
+                            .collect(Collectors.joining("-")) + "-cg-stats.json")
+                    .toString();
+        }
+        logger.info("Dumping call graph statistics to {} ...", output);
+        try {
+            new ObjectMapper()
+                    .writerWithDefaultPrettyPrinter()
+                    .writeValue(new File(output), collect(callGraph, phases));
+        } catch (IOException e) {
+            throw new AnalysisException(
+                    "Failed to dump call graph statistics to " + output, e);
+        }
+    }
+
+    /**
+     * @return the statistics of given call graph as a JSON-like tree.
+     */
+    static Map<String, Object> collect(CallGraph<Invoke, JMethod> callGraph,
+                                       Collection<Phase> phases) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("methods", callGraph.getNumberOfMethods());
+        stats.put("edges", callGraph.getNumberOfEdges());
+        List<Invoke> callSites = callGraph.reachableMethods()
+                .flatMap(callGraph::callSitesIn)
+                .toList();
+        stats.put("call-sites", callSites.size());
+
+        // megamorphic call sites
+        List<Map<String, Object>> megamorphic = callSites.stream()
+                .filter(cs -> callGraph.getCalleesOf(cs).size() > 1)
+                .sorted(Comparator.<Invoke>comparingInt(
+                                cs -> callGraph.getCalleesOf(cs).size())
+                        .reversed()
+                        .thenComparing(CallGraphs::toString))
+                .limit(TOP_N)
+                .map(cs -> {
+                    Map<String, Object> site = new LinkedHashMap<>();
+                    site.put("call-site", CallGraphs.toString(cs));
+                    site.put("callees", callGraph.getCalleesOf(cs).size());
+                    return site;
+                })
+                .toList();
+        stats.put("megamorphic-call-sites", megamorphic);
+
+        // fan-out: number of callees of each call site,
+        // fan-in: number of call sites invoking each method
+        Map<Integer, Integer> fanOut = new TreeMap<>();
+        callSites.forEach(cs -> fanOut.merge(
+                callGraph.getCalleesOf(cs).size(), 1, Integer::sum));
+        stats.put("fan-out-histogram", fanOut);
+        Map<Integer, Integer> fanIn = new TreeMap<>();
+        callGraph.reachableMethods().forEach(m -> fanIn.merge(
+                callGraph.getCallersOf(m).size(), 1, Integer::sum));
+        stats.put("fan-in-histogram", fanIn);
+
+        // largest SCCs
+        CallGraphSCCs<JMethod> cgSCCs = CallGraphSCCs.of(callGraph);
+        List<Map<String, Object>> sccs = IntStream.range(0, cgSCCs.getNumberOfComponents())
+                .filter(cgSCCs::isRecursive)
+                .mapToObj(cgSCCs::getComponent)
+                .sorted(Comparator.<List<JMethod>>comparingInt(List::size).reversed())
+                .limit(TOP_N)
+                .map(component -> {
+                    Map<String, Object> scc = new LinkedHashMap<>();
+                    scc.put("size", component.size());
+                    scc.put("methods", component.stream()
+                            .map(JMethod::toString)
+                            .sorted()
+                            .toList());
+                    return scc;
+                })
+                .toList();
+        stats.put("largest-sccs", sccs);
+
+        // builder phases
+        List<Map<String, Object>> phaseStats = new ArrayList<>();
+        phases.forEach(phase -> {
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("name", phase.getName());
+            p.put("time-ms", phase.getTime() / 1_000_000);
+            p.put("edges", phase.getEdges());
+            phaseStats.add(p);
+        });
+        stats.put("phases", phaseStats);
+        return stats;
+    }
+}
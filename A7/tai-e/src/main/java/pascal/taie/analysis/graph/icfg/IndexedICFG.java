@@ -0,0 +1,449 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.graph.icfg;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphSCCs;
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.Sets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Frozen, index-based representation of an {@link ICFG}.
+ * <p>
+ * Nodes and methods are numbered by dense ids from 0. The in/out edges
+ * of all nodes are stored in compressed sparse row (CSR) arrays, together
+ * with their kinds, so that solvers can iterate edges without allocation
+ * or hashing. The out (in) edges of node n occupy the slots in range
+ * [{@link #getOutStart(int) getOutStart(n)}, {@link #getOutEnd(int)
+ * getOutEnd(n)}) of the out (in) edge arrays.
+ *
+ * @param <Method> type of ICFG methods
+ * @param <Node>   type of ICFG nodes
+ */
+public class IndexedICFG<Method, Node> {
+
+    public static final byte NORMAL = 0;
+
+    public static final byte CALL_TO_RETURN = 1;
+
+    public static final byte CALL = 2;
+
+    public static final byte RETURN = 3;
+
+    private final ICFG<Method, Node> icfg;
+
+    private final List<Node> nodes;
+
+    private final Map<Node, Integer> nodeIds;
+
+    private final List<Method> methods = new ArrayList<>();
+
+    private final Map<Method, Integer> methodIds = Maps.newMap();
+
+    /**
+     * Node id -> id of its containing method.
+     */
+    private final int[] nodeMethods;
+
+    private final boolean[] callSites;
+
+    private final int[] methodEntries;
+
+    private final int[] methodExits;
+
+    private final int[] outOffsets;
+
+    private final int[] outTargets;
+
+    private final byte[] outKinds;
+
+    private final ICFGEdge<Node>[] outEdges;
+
+    private final int[] inOffsets;
+
+    private final int[] inSources;
+
+    private final byte[] inKinds;
+
+    private final ICFGEdge<Node>[] inEdges;
+
+    /**
+     * Return sites of each call site in CSR form.
+     */
+    private final int[] returnSiteOffsets;
+
+    private final int[] returnSites;
+
+    private final int[] entryMethods;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private IndexedICFG(ICFG<Method, Node> icfg, List<Node> order) {
+        this.icfg = icfg;
+        int n = order.size();
+        if (n != icfg.getNumberOfNodes()) {
+            throw new AnalysisException("The order contains " + n
+                    + " nodes, but the ICFG contains "
+                    + icfg.getNumberOfNodes() + " nodes");
+        }
+        nodes = List.copyOf(order);
+        nodeIds = Maps.newMap(n);
+        for (Node node : nodes) {
+            nodeIds.put(node, nodeIds.size());
+        }
+        // methods
+        nodeMethods = new int[n];
+        callSites = new boolean[n];
+        for (int i = 0; i < n; ++i) {
+            Node node = nodes.get(i);
+            nodeMethods[i] = getOrAddMethod(icfg.getContainingMethodOf(node));
+            callSites[i] = icfg.isCallSite(node);
+        }
+        methodEntries = new int[methods.size()];
+        methodExits = new int[methods.size()];
+        for (int m = 0; m < methods.size(); ++m) {
+            methodEntries[m] = getId(icfg.getEntryOf(methods.get(m)));
+            methodExits[m] = getId(icfg.getExitOf(methods.get(m)));
+        }
+        entryMethods = icfg.entryMethods()
+                .mapToInt(this::getMethodId)
+                .filter(m -> m != -1)
+                .toArray();
+        // edges
+        int edges = 0;
+        outOffsets = new int[n + 1];
+        inOffsets = new int[n + 1];
+        for (int i = 0; i < n; ++i) {
+            outOffsets[i] = edges;
+            edges += icfg.getOutEdgesOf(nodes.get(i)).size();
+        }
+        outOffsets[n] = edges;
+        outTargets = new int[edges];
+        outKinds = new byte[edges];
+        outEdges = new ICFGEdge[edges];
+        inSources = new int[edges];
+        inKinds = new byte[edges];
+        inEdges = new ICFGEdge[edges];
+        int e = 0;
+        for (int i = 0; i < n; ++i) {
+            for (ICFGEdge<Node> edge : icfg.getOutEdgesOf(nodes.get(i))) {
+                outTargets[e] = getId(edge.getTarget());
+                outKinds[e] = kindOf(edge);
+                outEdges[e] = edge;
+                ++e;
+            }
+        }
+        e = 0;
+        for (int i = 0; i < n; ++i) {
+            inOffsets[i] = e;
+            for (ICFGEdge<Node> edge : icfg.getInEdgesOf(nodes.get(i))) {
+                inSources[e] = getId(edge.getSource());
+                inKinds[e] = kindOf(edge);
+                inEdges[e] = edge;
+                ++e;
+            }
+        }
+        inOffsets[n] = e;
+        // return sites
+        returnSiteOffsets = new int[n + 1];
+        List<Integer> sites = new ArrayList<>();
+        for (int i = 0; i < n; ++i) {
+            returnSiteOffsets[i] = sites.size();
+            if (callSites[i]) {
+                icfg.getReturnSitesOf(nodes.get(i))
+                        .forEach(site -> sites.add(getId(site)));
+            }
+        }
+        returnSiteOffsets[n] = sites.size();
+        returnSites = sites.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Freezes given ICFG, where nodes are numbered in the iteration
+     * order of the ICFG.
+     */
+    public static <Method, Node> IndexedICFG<Method, Node> freeze(
+            ICFG<Method, Node> icfg) {
+        List<Node> order = new ArrayList<>(icfg.getNumberOfNodes());
+        icfg.forEach(order::add);
+        return new IndexedICFG<>(icfg, order);
+    }
+
+    /**
+     * Freezes given ICFG, where nodes are numbered in given order.
+     *
+     * @param order all nodes of the ICFG
+     */
+    public static <Method, Node> IndexedICFG<Method, Node> freeze(
+            ICFG<Method, Node> icfg, List<Node> order) {
+        return new IndexedICFG<>(icfg, order);
+    }
+
+    /**
+     * Freezes given ICFG, where nodes are numbered in bottom-up order of
+     * the SCCs of given call graph that contain their methods, and then
+     * in reverse post-order of the intra-procedural edges in each method.
+     * Thus, smaller ids of nodes mean that their methods are callees,
+     * or that they come earlier in the control flow of their method.
+     */
+    public static <Method, Node> IndexedICFG<Method, Node> freezeBottomUp(
+            ICFG<Method, Node> icfg, CallGraph<?, Method> callGraph) {
+        return new IndexedICFG<>(icfg, computeBottomUpOrder(icfg, callGraph));
+    }
+
+    /**
+     * @return all nodes of the ICFG in bottom-up order of the SCCs
+     * of given call graph, and then in reverse post-order in each method.
+     */
+    private static <Method, Node> List<Node> computeBottomUpOrder(
+            ICFG<Method, Node> icfg, CallGraph<?, Method> callGraph) {
+        // group nodes by their containing methods
+        Map<Method, List<Node>> methodNodes = new LinkedHashMap<>();
+        for (Node node : icfg) {
+            methodNodes.computeIfAbsent(icfg.getContainingMethodOf(node),
+                    m -> new ArrayList<>()).add(node);
+        }
+        // sort methods in bottom-up order of call graph SCCs
+        CallGraphSCCs<Method> sccs = CallGraphSCCs.of(callGraph);
+        List<Method> methods = new ArrayList<>(methodNodes.keySet());
+        methods.sort(Comparator.comparingInt(m -> {
+            int i = sccs.getComponentIndex(m);
+            return i != -1 ? i : Integer.MAX_VALUE;
+        }));
+        List<Node> order = new ArrayList<>(icfg.getNumberOfNodes());
+        for (Method method : methods) {
+            List<Node> rpo = reversePostOrder(icfg, icfg.getEntryOf(method));
+            order.addAll(rpo);
+            if (rpo.size() < methodNodes.get(method).size()) {
+                // nodes unreachable from the entry
+                Set<Node> visited = new HashSet<>(rpo);
+                methodNodes.get(method)
+                        .stream()
+                        .filter(n -> !visited.contains(n))
+                        .forEach(order::add);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the nodes of a method in reverse post-order of the
+     * intra-procedural edges starting from the entry of the method.
+     */
+    private static <Node> List<Node> reversePostOrder(
+            ICFG<?, Node> icfg, Node entry) {
+        List<Node> postOrder = new ArrayList<>();
+        Set<Node> visited = Sets.newSet();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<ICFGEdge<Node>>> edges = new ArrayDeque<>();
+        visited.add(entry);
+        stack.push(entry);
+        edges.push(icfg.getOutEdgesOf(entry).iterator());
+        while (!stack.isEmpty()) {
+            Iterator<ICFGEdge<Node>> it = edges.peek();
+            Node next = null;
+            while (it.hasNext()) {
+                ICFGEdge<Node> edge = it.next();
+                if (!(edge instanceof CallEdge || edge instanceof ReturnEdge)
+                        && visited.add(edge.getTarget())) {
+                    next = edge.getTarget();
+                    break;
+                }
+            }
+            if (next != null) {
+                stack.push(next);
+                edges.push(icfg.getOutEdgesOf(next).iterator());
+            } else {
+                postOrder.add(stack.pop());
+                edges.pop();
+            }
+        }
+        List<Node> rpo = new ArrayList<>(postOrder.size());
+        for (int i = postOrder.size() - 1; i >= 0; --i) {
+            rpo.add(postOrder.get(i));
+        }
+        return rpo;
+    }
+
+    private int getOrAddMethod(Method method) {
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = methods.size();
+            methodIds.put(method, id);
+            methods.add(method);
+        }
+        return id;
+    }
+
+    private static byte kindOf(ICFGEdge<?> edge) {
+        if (edge instanceof NormalEdge) {
+            return NORMAL;
+        } else if (edge instanceof CallToReturnEdge) {
+            return CALL_TO_RETURN;
+        } else if (edge instanceof CallEdge) {
+            return CALL;
+        } else {
+            return RETURN;
+        }
+    }
+
+    /**
+     * @return the original ICFG.
+     */
+    public ICFG<Method, Node> getICFG() {
+        return icfg;
+    }
+
+    public int getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    public int getNumberOfEdges() {
+        return outTargets.length;
+    }
+
+    public Node getNode(int id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * @return the id of given node, or -1 if it is not a node of the ICFG.
+     */
+    public int getId(Node node) {
+        Integer id = nodeIds.get(node);
+        return id != null ? id : -1;
+    }
+
+    public int getNumberOfMethods() {
+        return methods.size();
+    }
+
+    public Method getMethod(int id) {
+        return methods.get(id);
+    }
+
+    /**
+     * @return the id of given method, or -1 if it is not a method of the ICFG.
+     */
+    public int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return ids of entry methods of the ICFG.
+     */
+    public int[] getEntryMethods() {
+        return entryMethods.clone();
+    }
+
+    /**
+     * @return id of the method that contains given node.
+     */
+    public int getMethodOf(int node) {
+        return nodeMethods[node];
+    }
+
+    public int getEntryOf(int method) {
+        return methodEntries[method];
+    }
+
+    public int getExitOf(int method) {
+        return methodExits[method];
+    }
+
+    public boolean isCallSite(int node) {
+        return callSites[node];
+    }
+
+    // ---------- out edges ----------
+    public int getOutStart(int node) {
+        return outOffsets[node];
+    }
+
+    public int getOutEnd(int node) {
+        return outOffsets[node + 1];
+    }
+
+    public int getOutTarget(int edge) {
+        return outTargets[edge];
+    }
+
+    public byte getOutKind(int edge) {
+        return outKinds[edge];
+    }
+
+    public ICFGEdge<Node> getOutEdge(int edge) {
+        return outEdges[edge];
+    }
+
+    // ---------- in edges ----------
+    public int getInStart(int node) {
+        return inOffsets[node];
+    }
+
+    public int getInEnd(int node) {
+        return inOffsets[node + 1];
+    }
+
+    public int getInSource(int edge) {
+        return inSources[edge];
+    }
+
+    public byte getInKind(int edge) {
+        return inKinds[edge];
+    }
+
+    public ICFGEdge<Node> getInEdge(int edge) {
+        return inEdges[edge];
+    }
+
+    // ---------- return sites ----------
+    /**
+     * The return sites of call site c are {@link #getReturnSite(int)
+     * getReturnSite(i)} for i in [getReturnSitesStart(c),
+     * getReturnSitesEnd(c)), which is empty for non-call nodes.
+     */
+    public int getReturnSitesStart(int callSite) {
+        return returnSiteOffsets[callSite];
+    }
+
+    public int getReturnSitesEnd(int callSite) {
+        return returnSiteOffsets[callSite + 1];
+    }
+
+    public int getReturnSite(int i) {
+        return returnSites[i];
+    }
+}
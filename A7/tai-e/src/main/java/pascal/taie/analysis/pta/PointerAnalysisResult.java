@@ -30,31 +30,21 @@ import pascal.taie.analysis.pta.core.cs.element.CSObj;
 import pascal.taie.analysis.pta.core.cs.element.CSVar;
 import pascal.taie.analysis.pta.core.cs.element.InstanceField;
 import pascal.taie.analysis.pta.core.cs.element.StaticField;
-import pascal.taie.analysis.pta.core.heap.Obj;
-import pascal.taie.ir.exp.Var;
-import pascal.taie.ir.stmt.Invoke;
-import pascal.taie.language.classes.JField;
-import pascal.taie.language.classes.JMethod;
-import pascal.taie.util.ResultHolder;
 
 import java.util.Collection;
 import java.util.Set;
 
 /**
- * Represents results of pointer analysis.
+ * Represents results of pointer analysis, including the
+ * context-sensitive elements.
  */
-public interface PointerAnalysisResult extends ResultHolder {
+public interface PointerAnalysisResult extends CIPointerAnalysisResult {
 
     /**
      * @return all reachable context-sensitive variables in the program.
      */
     Collection<CSVar> getCSVars();
 
-    /**
-     * @return all reachable variables in the program.
-     */
-    Collection<Var> getVars();
-
     /**
      * @return all reachable instance fields in the program.
      */
@@ -75,38 +65,13 @@ public interface PointerAnalysisResult extends ResultHolder {
      */
     Collection<CSObj> getCSObjects();
 
-    /**
-     * @return all reachable objects in the program.
-     */
-    Collection<Obj> getObjects();
-
     /**
      * @return context-sensitive points-to set of context-sensitive variable var.
      */
     Set<CSObj> getPointsToSet(CSVar var);
 
-    /**
-     * @return set of Obj pointed to by var.
-     */
-    Set<Obj> getPointsToSet(Var var);
-
-    /**
-     * @return set of Obj pointed to by base.field.
-     */
-    Set<Obj> getPointsToSet(Var base, JField field);
-
-    /**
-     * @return points-to set of given field. The field is supposed to be static.
-     */
-    Set<Obj> getPointsToSet(JField field);
-
     /**
      * @return the resulting context-sensitive call graph.
      */
     CallGraph<CSCallSite, CSMethod> getCSCallGraph();
-
-    /**
-     * @return the resulting call graph (without contexts).
-     */
-    CallGraph<Invoke, JMethod> getCallGraph();
 }
@@ -0,0 +1,314 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta;
+
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.Edge;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.FieldStmt;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+import pascal.taie.util.collection.Maps;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Exports pointer analysis results to a compact binary file, and loads
+ * such files as read-only {@link CIPointerAnalysisResult}s, so that one
+ * pointer analysis run can be reused by later runs on the same program.
+ * <p>
+ * The file consists of the tables of strings, methods, variables, fields
+ * and objects, followed by the points-to sets, the call graph, and
+ * the bitmaps of the points-to sets. Program elements are stored by
+ * their signatures and indexes, and are resolved against the current
+ * {@link pascal.taie.World} when the file is loaded. Objects are loaded
+ * as stand-ins that keep the types, container methods and descriptions
+ * of the original objects. Points-to sets are sparse bitmaps over
+ * object numbers, which are decoded from the memory-mapped file on
+ * first query.
+ * <p>
+ * Field points-to sets, i.e., v.f, are stored for the instance field
+ * accesses of the variables and the static fields accessed by the
+ * reachable methods; other field queries on a loaded result return
+ * empty sets.
+ */
+public final class PointerAnalysisResultIO {
+
+    static final int MAGIC = 0x54414950; // "TAIP"
+
+    static final int VERSION = 1;
+
+    private PointerAnalysisResultIO() {
+    }
+
+    /**
+     * Writes the given pointer analysis result to the file.
+     */
+    public static void write(CIPointerAnalysisResult result, Path file) {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            new Writer(result).write(new DataOutputStream(out));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write pointer analysis result", e);
+        }
+    }
+
+    /**
+     * Loads a pointer analysis result written by {@link #write}.
+     * The program of the current world must be the one analyzed
+     * by the pointer analysis that produced the file.
+     */
+    public static CIPointerAnalysisResult read(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new MappedPointerAnalysisResult(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read pointer analysis result", e);
+        }
+    }
+
+    /**
+     * Numbers the elements of a result and writes them out.
+     */
+    private static class Writer {
+
+        private final CIPointerAnalysisResult result;
+
+        private final Map<String, Integer> strings = Maps.newMap();
+
+        private final Map<JMethod, Integer> methods = Maps.newMap();
+
+        private final Map<Var, Integer> vars = Maps.newMap();
+
+        private final Map<JField, Integer> fields = Maps.newMap();
+
+        private final Map<Obj, Integer> objs = Maps.newMap();
+
+        /**
+         * Bitmaps of all points-to sets, which are written last.
+         */
+        private final ByteArrayOutputStream bitmaps = new ByteArrayOutputStream();
+
+        private final DataOutputStream bitmapOut = new DataOutputStream(bitmaps);
+
+        private Writer(CIPointerAnalysisResult result) {
+            this.result = result;
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            CallGraph<Invoke, JMethod> callGraph = result.getCallGraph();
+            // number the elements and encode the points-to sets
+            result.getObjects().forEach(this::getObjId);
+            List<long[]> varPts = new ArrayList<>();
+            List<long[]> fieldPts = new ArrayList<>();
+            for (Var var : result.getVars()) {
+                varPts.add(new long[]{getVarId(var),
+                        addBitmap(result.getPointsToSet(var))});
+                for (JField field : getInstanceFields(var)) {
+                    fieldPts.add(new long[]{getVarId(var), getFieldId(field),
+                            addBitmap(result.getPointsToSet(var, field))});
+                }
+            }
+            List<long[]> staticPts = new ArrayList<>();
+            callGraph.reachableMethods()
+                    .filter(m -> !m.isAbstract() && !m.isNative())
+                    .flatMap(m -> m.getIR().stmts())
+                    .filter(s -> s instanceof FieldStmt<?, ?> fs && fs.isStatic())
+                    .map(s -> ((FieldStmt<?, ?>) s).getFieldRef().resolve())
+                    .distinct()
+                    .forEach(f -> staticPts.add(new long[]{getFieldId(f),
+                            addBitmap(result.getPointsToSet(f))}));
+            List<int[]> edges = callGraph.edges()
+                    .map(e -> new int[]{
+                            getMethodId(callGraph.getContainerOf(e.getCallSite())),
+                            e.getCallSite().getIndex(),
+                            getMethodId(e.getCallee()),
+                            e.getKind().ordinal()})
+                    .toList();
+            int[] entries = callGraph.entryMethods().mapToInt(this::getMethodId).toArray();
+            int[] reachables = callGraph.reachableMethods().mapToInt(this::getMethodId).toArray();
+            // the tables; strings go first as the other tables refer to them,
+            // so all elements are numbered before any table is written
+            vars.keySet().forEach(v -> getMethodId(v.getMethod()));
+            Obj[] objArray = toArray(objs, Obj[]::new);
+            int[][] objRows = new int[objArray.length][];
+            for (int i = 0; i < objArray.length; ++i) {
+                Obj obj = objArray[i];
+                objRows[i] = new int[]{
+                        getStringId(obj.getType().getName()),
+                        getStringId(obj.toString()),
+                        obj.getContainerMethod().map(this::getMethodId).orElse(-1),
+                        getStringId(obj.getContainerType().getName())};
+            }
+            JMethod[] methodArray = toArray(methods, JMethod[]::new);
+            int[] methodRows = Arrays.stream(methodArray)
+                    .mapToInt(m -> getStringId(m.getSignature())).toArray();
+            JField[] fieldArray = toArray(fields, JField[]::new);
+            int[] fieldRows = Arrays.stream(fieldArray)
+                    .mapToInt(f -> getStringId(f.getSignature())).toArray();
+            Var[] varArray = toArray(vars, Var[]::new);
+
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            String[] stringArray = toArray(strings, String[]::new);
+            out.writeInt(stringArray.length);
+            for (String s : stringArray) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            writeInts(out, methodRows);
+            out.writeInt(varArray.length);
+            for (Var var : varArray) {
+                out.writeInt(getMethodId(var.getMethod()));
+                out.writeInt(var.getIndex());
+            }
+            writeInts(out, fieldRows);
+            out.writeInt(objRows.length);
+            for (int[] row : objRows) {
+                for (int i : row) {
+                    out.writeInt(i);
+                }
+            }
+            out.writeInt(varPts.size());
+            for (long[] row : varPts) {
+                out.writeInt((int) row[0]);
+                out.writeLong(row[1]);
+            }
+            out.writeInt(fieldPts.size());
+            for (long[] row : fieldPts) {
+                out.writeInt((int) row[0]);
+                out.writeInt((int) row[1]);
+                out.writeLong(row[2]);
+            }
+            out.writeInt(staticPts.size());
+            for (long[] row : staticPts) {
+                out.writeInt((int) row[0]);
+                out.writeLong(row[1]);
+            }
+            writeInts(out, entries);
+            writeInts(out, reachables);
+            out.writeInt(edges.size());
+            for (int[] row : edges) {
+                for (int i : row) {
+                    out.writeInt(i);
+                }
+            }
+            bitmapOut.flush();
+            bitmaps.writeTo(out);
+            out.flush();
+        }
+
+        private static Collection<JField> getInstanceFields(Var var) {
+            Set<JField> result = new LinkedHashSet<>();
+            var.getLoadFields().forEach(s -> result.add(s.getFieldRef().resolve()));
+            var.getStoreFields().forEach(s -> result.add(s.getFieldRef().resolve()));
+            return result;
+        }
+
+        /**
+         * Appends the bitmap of the given objects to the bitmap section.
+         *
+         * @return offset of the bitmap in the bitmap section.
+         */
+        private long addBitmap(Set<Obj> pts) {
+            long offset = bitmapOut.size();
+            int[] ids = pts.stream().mapToInt(this::getObjId).sorted().toArray();
+            List<long[]> words = new ArrayList<>();
+            for (int id : ids) {
+                int key = id >>> 6;
+                if (words.isEmpty() || words.get(words.size() - 1)[0] != key) {
+                    words.add(new long[]{key, 0});
+                }
+                words.get(words.size() - 1)[1] |= 1L << id;
+            }
+            try {
+                bitmapOut.writeInt(words.size());
+                for (long[] word : words) {
+                    bitmapOut.writeInt((int) word[0]);
+                    bitmapOut.writeLong(word[1]);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return offset;
+        }
+
+        private int getStringId(String s) {
+            return getId(strings, s);
+        }
+
+        private int getMethodId(JMethod method) {
+            return getId(methods, method);
+        }
+
+        private int getVarId(Var var) {
+            return getId(vars, var);
+        }
+
+        private int getFieldId(JField field) {
+            return getId(fields, field);
+        }
+
+        private int getObjId(Obj obj) {
+            return getId(objs, obj);
+        }
+
+        private static <T> int getId(Map<T, Integer> ids, T element) {
+            return ids.computeIfAbsent(element, e -> ids.size());
+        }
+
+        private static <T> T[] toArray(Map<T, Integer> ids,
+                                       IntFunction<T[]> generator) {
+            T[] array = generator.apply(ids.size());
+            ids.forEach((e, i) -> array[i] = e);
+            return array;
+        }
+
+        private static void writeInts(DataOutputStream out, int[] ints)
+                throws IOException {
+            out.writeInt(ints.length);
+            for (int i : ints) {
+                out.writeInt(i);
+            }
+        }
+    }
+}
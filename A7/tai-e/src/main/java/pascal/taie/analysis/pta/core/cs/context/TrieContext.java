@@ -0,0 +1,231 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.pta.core.cs.context;
+
+import pascal.taie.util.AnalysisException;
+import pascal.taie.util.collection.Maps;
+import pascal.taie.util.collection.TwoKeyMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Context represented by a node of a trie. Each node holds the last
+ * element of the context and links to the node of the context without
+ * that element, so contexts sharing a prefix share the nodes.
+ * <p>
+ * The contexts are created and hash-consed by a {@link Factory}: two
+ * contexts of the same factory are equal iff they are the same object,
+ * and each of them is identified by a dense integer id.
+ */
+public class TrieContext implements Context {
+
+    /**
+     * The context without the last element, null for the empty context.
+     */
+    private final TrieContext parent;
+
+    /**
+     * The last element of the context.
+     */
+    private final Object elem;
+
+    private final int length;
+
+    private final int id;
+
+    /**
+     * Contexts that extend this context by one element.
+     */
+    private Map<Object, TrieContext> children;
+
+    /**
+     * Memoized results of {@link Factory#append}, keyed by
+     * the appended element and the limit.
+     */
+    private TwoKeyMap<Object, Integer, TrieContext> appended;
+
+    private TrieContext(TrieContext parent, Object elem, int id) {
+        this.parent = parent;
+        this.elem = elem;
+        this.length = parent == null ? 0 : parent.length + 1;
+        this.id = id;
+    }
+
+    /**
+     * @return the id of this context, unique among the contexts
+     * created by the same factory.
+     */
+    public int getId() {
+        return id;
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public Object getElementAt(int i) {
+        if (i < 0 || i >= length) {
+            throw new AnalysisException(
+                    "Context " + this + " doesn't have " + i + "-th element");
+        }
+        TrieContext context = this;
+        for (int j = length - 1; j > i; --j) {
+            context = context.parent;
+        }
+        return context.elem;
+    }
+
+    // equals() is inherited from Object, as contexts are interned
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (int i = 0; i < length; ++i) {
+            joiner.add(String.valueOf(getElementAt(i)));
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Creates and interns trie contexts. Contexts from different
+     * factories must not be mixed.
+     */
+    public static class Factory {
+
+        /**
+         * Contexts indexed by their ids.
+         */
+        private final List<TrieContext> contexts = new ArrayList<>();
+
+        private final TrieContext root;
+
+        public Factory() {
+            root = newContext(null, null);
+        }
+
+        /**
+         * @return the empty context.
+         */
+        public Context getEmptyContext() {
+            return root;
+        }
+
+        /**
+         * @return the context that consists of given context elements.
+         */
+        public Context make(Object... elements) {
+            TrieContext context = root;
+            for (Object elem : elements) {
+                context = getChild(context, elem);
+            }
+            return context;
+        }
+
+        /**
+         * @return the context with given id.
+         */
+        public Context getContext(int id) {
+            return contexts.get(id);
+        }
+
+        /**
+         * @return the number of contexts created by this factory.
+         */
+        public int getContextCount() {
+            return contexts.size();
+        }
+
+        /**
+         * Appends an element to a context and keeps the last
+         * {@code limit} elements of the result. The results are
+         * memoized in the node of the given context.
+         *
+         * @param parent the context to be extended
+         * @param elem   the element to append
+         * @param limit  the maximum length of the result, at least 1
+         */
+        public Context append(Context parent, Object elem, int limit) {
+            return doAppend((TrieContext) parent, elem, limit);
+        }
+
+        /**
+         * @return the context that consists of the last {@code limit}
+         * elements of given context.
+         */
+        public Context truncate(Context context, int limit) {
+            return doTruncate((TrieContext) context, limit);
+        }
+
+        private TrieContext doAppend(TrieContext parent, Object elem, int limit) {
+            if (parent.appended == null) {
+                parent.appended = Maps.newTwoKeyMap();
+            }
+            TrieContext result = parent.appended.get(elem, limit);
+            if (result == null) {
+                result = getChild(doTruncate(parent, limit - 1), elem);
+                parent.appended.put(elem, limit, result);
+            }
+            return result;
+        }
+
+        private TrieContext doTruncate(TrieContext context, int limit) {
+            if (context.length <= limit) {
+                return context;
+            }
+            if (limit <= 0) {
+                return root;
+            }
+            // the last k elements of [c1, ..., cn] are
+            // the last k-1 elements of [c1, ..., cn-1] plus cn
+            return doAppend(context.parent, context.elem, limit);
+        }
+
+        private TrieContext getChild(TrieContext parent, Object elem) {
+            if (parent.children == null) {
+                parent.children = Maps.newMap();
+            }
+            TrieContext child = parent.children.get(elem);
+            if (child == null) {
+                child = newContext(parent, elem);
+                parent.children.put(elem, child);
+            }
+            return child;
+        }
+
+        private TrieContext newContext(TrieContext parent, Object elem) {
+            TrieContext context = new TrieContext(parent, elem, contexts.size());
+            contexts.add(context);
+            return context;
+        }
+    }
+}
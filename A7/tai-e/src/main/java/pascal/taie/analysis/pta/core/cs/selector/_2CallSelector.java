@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -38,22 +38,17 @@ import java.util.List;
  */
 public class _2CallSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory = new TrieContext.Factory();
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
     public Context selectContext(CSCallSite callSite, JMethod callee) {
         // Done - finish me
-        Context callerContext = callSite.getContext();
-        int len = callerContext.getLength();
-        Context calleeContext;
-        if(len >= 1)
-            calleeContext = ListContext.make(callerContext.getElementAt(len-1), callSite.getCallSite());
-        else
-            calleeContext = ListContext.make(callSite.getCallSite());
-        return calleeContext;
+        return factory.append(callSite.getContext(), callSite.getCallSite(), 2);
     }
 
     @Override
@@ -67,13 +62,6 @@ public class _2CallSelector implements ContextSelector {
         // Done - finish me
         // it is used for x=new T(), so we just use caller's current context
         // Only for call we need to recalculate context
-        Context currentContext = method.getContext();
-        int len = currentContext.getLength();
-        Context newContext;
-        if(len >= 1)
-            newContext = ListContext.make(currentContext.getElementAt(len-1));
-        else
-            newContext = ListContext.make();
-        return newContext;
+        return factory.truncate(method.getContext(), 1);
     }
 }
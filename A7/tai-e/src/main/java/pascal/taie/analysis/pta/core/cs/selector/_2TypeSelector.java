@@ -23,7 +23,7 @@
 package pascal.taie.analysis.pta.core.cs.selector;
 
 import pascal.taie.analysis.pta.core.cs.context.Context;
-import pascal.taie.analysis.pta.core.cs.context.ListContext;
+import pascal.taie.analysis.pta.core.cs.context.TrieContext;
 import pascal.taie.analysis.pta.core.cs.element.CSCallSite;
 import pascal.taie.analysis.pta.core.cs.element.CSMethod;
 import pascal.taie.analysis.pta.core.cs.element.CSObj;
@@ -36,9 +36,11 @@ import pascal.taie.language.type.Type;
  */
 public class _2TypeSelector implements ContextSelector {
 
+    private final TrieContext.Factory factory = new TrieContext.Factory();
+
     @Override
     public Context getEmptyContext() {
-        return ListContext.make();
+        return factory.getEmptyContext();
     }
 
     @Override
@@ -52,14 +54,7 @@ public class _2TypeSelector implements ContextSelector {
     @Override
     public Context selectContext(CSCallSite callSite, CSObj recv, JMethod callee) {
         // Done - finish me
-        Context callerContext = recv.getContext();
-        int len = callerContext.getLength();
-        Context calleeContext;
-        if(len >= 1)
-            calleeContext = ListContext.make(callerContext.getElementAt(len-1), recv.getObject().getContainerType());
-        else
-            calleeContext = ListContext.make(recv.getObject().getContainerType());
-        return calleeContext;
+        return factory.append(recv.getContext(), recv.getObject().getContainerType(), 2);
     }
 
     @Override
@@ -67,13 +62,6 @@ public class _2TypeSelector implements ContextSelector {
         // Done - finish me
         // it is used for x=new T(), so we just use T's context
         // Only for call we need to recalculate context
-        Context callerContext = method.getContext();
-        int len = callerContext.getLength();
-        Context calleeContext;
-        if(len >= 1)
-            calleeContext = ListContext.make(callerContext.getElementAt(len-1));
-        else
-            calleeContext = ListContext.make();
-        return calleeContext;
+        return factory.truncate(method.getContext(), 1);
     }
-}
\ No newline at end of file
+}
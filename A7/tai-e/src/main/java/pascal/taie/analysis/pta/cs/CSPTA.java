@@ -24,6 +24,7 @@ package pascal.taie.analysis.pta.cs;
 
 import pascal.taie.analysis.ProgramAnalysis;
 import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultIO;
 import pascal.taie.analysis.pta.core.cs.selector.CISelector;
 import pascal.taie.analysis.pta.core.cs.selector.ContextSelector;
 import pascal.taie.analysis.pta.core.heap.AllocationSiteBasedModel;
@@ -35,6 +36,7 @@ import pascal.taie.util.Strings;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
 
 /**
  * Context-sensitive pointer analysis.
@@ -56,6 +58,10 @@ public class CSPTA extends ProgramAnalysis {
         solver.solve();
         PointerAnalysisResult result = solver.getResult();
         ResultProcessor.process(options, result);
+        String binaryFile = options.getString("binary-file");
+        if (binaryFile != null) {
+            PointerAnalysisResultIO.write(result, Path.of(binaryFile));
+        }
         return result;
     }
 
@@ -25,6 +25,7 @@ package pascal.taie.analysis.pta.cs;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import pascal.taie.World;
+import pascal.taie.analysis.graph.callgraph.CallGraphStatistics;
 import pascal.taie.analysis.graph.callgraph.CallGraphs;
 import pascal.taie.analysis.graph.callgraph.CallKind;
 import pascal.taie.analysis.graph.callgraph.Edge;
@@ -62,7 +63,9 @@ import pascal.taie.ir.stmt.StoreField;
 import pascal.taie.language.classes.JField;
 import pascal.taie.language.classes.JMethod;
 import pascal.taie.language.type.Type;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 class Solver {
 
@@ -84,6 +87,12 @@ class Solver {
 
     private PointerAnalysisResult result;
 
+    /**
+     * Time and call edges of each phase of the solver,
+     * which are reported by call graph statistics.
+     */
+    private final Map<String, CallGraphStatistics.Phase> phases = new LinkedHashMap<>();
+
     Solver(AnalysisOptions options, HeapModel heapModel,
            ContextSelector contextSelector) {
         this.options = options;
@@ -115,7 +124,10 @@ class Solver {
     private void addReachable(CSMethod csMethod) {
         // Done - finish me
         // Basically we construct the PFG that doesn't need object in this method
-        if (callGraph.addReachableMethod(csMethod)) {
+        long start = System.nanoTime();
+        boolean isNew = callGraph.addReachableMethod(csMethod);
+        getPhase("reachable-methods").record(System.nanoTime() - start, 0);
+        if (isNew) {
             IR methodBody = csMethod.getMethod().getIR();
             methodBody.getStmts().forEach(stmt -> {
                 stmt.accept(new StmtProcessor(csMethod));
@@ -191,11 +203,18 @@ class Solver {
         // static call y = T.m(x1, ..., xn);
         public Void visit(Invoke stmt) {
             if (stmt.isStatic()) {
+                long start = System.nanoTime();
                 //no receiver object, we only need method here
                 JMethod method = resolveCallee(null, stmt);
                 // Done - finish static call
-                Context calleeContext = contextSelector.selectContext(csManager.getCSCallSite(context, stmt), method);
-                processCallRoutine(csManager.getCSCallSite(context, stmt), csManager.getCSMethod(calleeContext, method));
+                CSCallSite csCallSite = csManager.getCSCallSite(context, stmt);
+                Context calleeContext = contextSelector.selectContext(csCallSite, method);
+                CSMethod csCalleeMethod = csManager.getCSMethod(calleeContext, method);
+                boolean isNewEdge = callGraph.addEdge(
+                        new Edge<>(CallKind.STATIC, csCallSite, csCalleeMethod));
+                getPhase("resolve-static").record(System.nanoTime() - start,
+                        isNewEdge ? 1 : 0);
+                processCallRoutine(csCallSite, csCalleeMethod);
             }
             return null;
         }
@@ -304,6 +323,7 @@ class Solver {
         // r = x.k(a)
         Var var = recv.getVar();
         var.getInvokes().forEach( invoke -> {
+                    long start = System.nanoTime();
                     JMethod calleeMethod = resolveCallee(recvObj, invoke);
                     CSCallSite csCallSite = csManager.getCSCallSite(recv.getContext(), invoke);
                     Context calleeContext = contextSelector.selectContext(csCallSite, recvObj, calleeMethod);
@@ -317,7 +337,11 @@ class Solver {
                     // expand reachable world
                     CallKind callKind = CallGraphs.getCallKind(invoke);
                     // l->m not in CG before, meaning we haven't expanded this method
-                    if (callGraph.addEdge(new Edge<>(callKind, csCallSite, csCalleeMethod))) {
+                    boolean isNewEdge = callGraph.addEdge(
+                            new Edge<>(callKind, csCallSite, csCalleeMethod));
+                    getPhase("resolve-" + callKind.name().toLowerCase())
+                            .record(System.nanoTime() - start, isNewEdge ? 1 : 0);
+                    if (isNewEdge) {
                         processCallRoutine(csCallSite, csCalleeMethod);
                     }
                 }
@@ -371,9 +395,15 @@ class Solver {
         return CallGraphs.resolveCallee(type, callSite);
     }
 
+    private CallGraphStatistics.Phase getPhase(String name) {
+        return phases.computeIfAbsent(name, CallGraphStatistics.Phase::new);
+    }
+
     PointerAnalysisResult getResult() {
         if (result == null) {
             result = new PointerAnalysisResultImpl(csManager, callGraph);
+            result.storeResult(CallGraphStatistics.PHASES,
+                    List.copyOf(phases.values()));
         }
         return result;
     }
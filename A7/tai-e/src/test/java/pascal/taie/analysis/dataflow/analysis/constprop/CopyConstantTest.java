@@ -0,0 +1,87 @@
+/*
+ * Tai-e: A Static Analysis Framework for Java
+ *
+ * Copyright (C) 2022 Tian Tan <tiantan@nju.edu.cn>
+ * Copyright (C) 2022 Yue Li <yueli@nju.edu.cn>
+ *
+ * This file is part of Tai-e.
+ *
+ * Tai-e is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License
+ * as published by the Free Software Foundation, either version 3
+ * of the License, or (at your option) any later version.
+ *
+ * Tai-e is distributed in the hope that it will be useful,but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General
+ * Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with Tai-e. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package pascal.taie.analysis.dataflow.analysis.constprop;
+
+import org.junit.Assert;
+import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
+import pascal.taie.analysis.dataflow.inter.IFDSSolver;
+import pascal.taie.analysis.graph.icfg.ICFG;
+import pascal.taie.analysis.graph.icfg.ICFGBuilder;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JMethod;
+
+import java.util.List;
+import java.util.Set;
+
+public class CopyConstantTest {
+
+    private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/ifds";
+
+    @Test
+    public void testCopyConstant() {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", "CopyConstant",
+                "-a", ICFGBuilder.ID, "-a", "cg=algorithm:cspta", "-a", "cspta=cs:ci"});
+        ICFG<JMethod, Stmt> icfg = World.get().getResult(ICFGBuilder.ID);
+        DataflowResult<Stmt, Set<CopyConstantPropagation.Fact>> result =
+                new IFDSSolver<>(new CopyConstantPropagation(icfg), icfg).solve();
+        // facts before the return of main()
+        IR main = getIR("<CopyConstant: void main(java.lang.String[])>");
+        CPFact fact = CopyConstantPropagation.toCPFact(
+                result.getInFact(getLastStmt(main)));
+        Assert.assertEquals(Value.makeConstant(1), fact.get(getVar(main, "a")));
+        // id() is analyzed separately for the constants of its call sites
+        Assert.assertEquals(Value.makeConstant(1), fact.get(getVar(main, "b")));
+        Assert.assertEquals(Value.makeConstant(2), fact.get(getVar(main, "c")));
+        Assert.assertEquals(Value.makeConstant(2), fact.get(getVar(main, "d")));
+        // binary expressions are not tracked
+        Assert.assertEquals(Value.getNAC(), fact.get(getVar(main, "e")));
+        // facts of id() merge the constants of all its calls
+        IR id = getIR("<CopyConstant: int id(int)>");
+        CPFact idFact = CopyConstantPropagation.toCPFact(
+                result.getInFact(getLastStmt(id)));
+        Assert.assertEquals(Value.getNAC(), idFact.get(getVar(id, "x")));
+    }
+
+    private static IR getIR(String method) {
+        return World.get().getClassHierarchy().getMethod(method).getIR();
+    }
+
+    private static Stmt getLastStmt(IR ir) {
+        List<Stmt> stmts = ir.getStmts();
+        return stmts.get(stmts.size() - 1);
+    }
+
+    private static Var getVar(IR ir, String name) {
+        return ir.getVars()
+                .stream()
+                .filter(v -> v.getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -22,18 +22,62 @@
 
 package pascal.taie.analysis.dataflow.analysis.constprop;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Assert;
 import org.junit.Test;
+import pascal.taie.Main;
+import pascal.taie.World;
 import pascal.taie.analysis.Tests;
+import pascal.taie.analysis.dataflow.fact.DataflowResult;
 import pascal.taie.analysis.dataflow.inter.InterConstantPropagation;
+import pascal.taie.analysis.graph.callgraph.CallGraph;
+import pascal.taie.analysis.graph.callgraph.CallGraphBuilder;
+import pascal.taie.analysis.pta.CIPointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResult;
+import pascal.taie.analysis.pta.PointerAnalysisResultIO;
+import pascal.taie.analysis.pta.core.heap.Obj;
+import pascal.taie.analysis.pta.cs.CSPTA;
+import pascal.taie.ir.IR;
+import pascal.taie.ir.exp.Var;
+import pascal.taie.ir.stmt.Invoke;
+import pascal.taie.ir.stmt.LoadField;
+import pascal.taie.ir.stmt.Stmt;
+import pascal.taie.language.classes.JField;
+import pascal.taie.language.classes.JMethod;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class InterCPAliasTest {
 
     private static final String CLASS_PATH = "src/test/resources/dataflow/constprop/alias";
 
+    private static final String OPTIONS = "edge-refine:false;alias-aware:true;pta:cspta";
+
     void test(String inputClass) {
+        test(inputClass, "", "");
+    }
+
+    void test(String inputClass, String cpOptions, String cgOptions) {
+        test(inputClass, cpOptions, "", cgOptions);
+    }
+
+    /**
+     * Runs a test case with extra options, which are appended to
+     * the options of inter-constprop, cspta and cg respectively. The results
+     * are compared with the same expected file as the default options.
+     */
+    void test(String inputClass, String cpOptions,
+              String ptaOptions, String cgOptions) {
         Tests.test(inputClass, CLASS_PATH, InterConstantPropagation.ID,
-                "edge-refine:false;alias-aware:true;pta:cspta",
-                "-a", "cspta=cs:2-obj", "-a", "cg=algorithm:cspta"
+                OPTIONS + cpOptions,
+                "-a", "cspta=cs:2-obj" + ptaOptions, "-a", "cg=algorithm:cspta" + cgOptions
                 //, "-a", "icfg=dump:true" // <-- uncomment this code if you want
                                            // to output ICFGs for the test cases
         );
@@ -74,6 +118,12 @@ public class InterCPAliasTest {
         test("ObjSens");
     }
 
+    @Test
+    public void testFieldRefs() {
+        // the field written via Derived.f is read via Base.f
+        test("FieldRefs");
+    }
+
     @Test
     public void testStaticField() {
         test("StaticField");
@@ -83,4 +133,152 @@ public class InterCPAliasTest {
     public void testStaticFieldMultiStores() {
         test("StaticFieldMultiStores");
     }
+
+    @Test
+    public void testParallel() {
+        // the parallel solver reaches the same fixed point
+        for (String inputClass : List.of("Array", "ArrayInter2", "ArrayLoops",
+                "InstanceField", "MultiStores", "Interprocedural2", "ObjSens",
+                "StaticField", "StaticFieldMultiStores")) {
+            test(inputClass, ";threads:4", "");
+        }
+    }
+
+    @Test
+    public void testAliasCacheSize() {
+        // loads of evicted heap locations are computed again
+        for (String inputClass : List.of("Array", "ArrayLoops",
+                "InstanceField", "MultiStores", "ObjSens")) {
+            test(inputClass, ";alias-cache-size:1", "");
+        }
+    }
+
+    @Test
+    public void testPTAFile() throws IOException {
+        for (String inputClass : List.of("Array", "InstanceField",
+                "ObjSens", "StaticField")) {
+            File ptaFile = File.createTempFile(inputClass + "-cspta", ".bin");
+            ptaFile.deleteOnExit();
+            test(inputClass, "", ";binary-file:" + ptaFile, "");
+            // the loaded result answers as the result it was exported from
+            PointerAnalysisResult pta = World.get().getResult(CSPTA.ID);
+            CIPointerAnalysisResult loaded = PointerAnalysisResultIO.read(ptaFile.toPath());
+            assertSameResult(pta, loaded);
+            // and inter-constprop on the loaded result gives the default results
+            test(inputClass, ";pta-file:" + ptaFile, "");
+        }
+    }
+
+    private static void assertSameResult(CIPointerAnalysisResult expected,
+                                         CIPointerAnalysisResult actual) {
+        Assert.assertEquals(expected.getVars().size(), actual.getVars().size());
+        for (Var var : expected.getVars()) {
+            Assert.assertEquals(var.toString(), toStrings(expected.getPointsToSet(var)),
+                    toStrings(actual.getPointsToSet(var)));
+            for (LoadField load : var.getLoadFields()) {
+                JField field = load.getFieldRef().resolve();
+                Assert.assertEquals(var + "." + field.getName(),
+                        toStrings(expected.getPointsToSet(var, field)),
+                        toStrings(actual.getPointsToSet(var, field)));
+            }
+        }
+        CallGraph<Invoke, JMethod> expectedCG = expected.getCallGraph();
+        CallGraph<Invoke, JMethod> actualCG = actual.getCallGraph();
+        Assert.assertEquals(expectedCG.getNumberOfMethods(), actualCG.getNumberOfMethods());
+        Assert.assertEquals(expectedCG.getNumberOfEdges(), actualCG.getNumberOfEdges());
+    }
+
+    private static Set<String> toStrings(Set<Obj> objs) {
+        Set<String> strings = new HashSet<>();
+        objs.forEach(obj -> strings.add(obj.toString()));
+        return strings;
+    }
+
+    @Test
+    public void testCallGraphStats() throws IOException {
+        File statsFile = File.createTempFile("ObjSens-cg-stats", ".json");
+        statsFile.deleteOnExit();
+        test("ObjSens", "", ";stats:true;stats-file:" + statsFile);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        JsonNode stats = new ObjectMapper().readTree(statsFile);
+        Assert.assertEquals(callGraph.getNumberOfMethods(), stats.get("methods").asInt());
+        Assert.assertEquals(callGraph.getNumberOfEdges(), stats.get("edges").asInt());
+        Assert.assertFalse(stats.get("phases").isEmpty());
+    }
+
+    @Test
+    public void testSummary() {
+        for (String inputClass : List.of("ArrayInter2", "Interprocedural2",
+                "MultiStores", "ObjSens", "StaticField")) {
+            assertRefines(analyze(inputClass, ";summary:true"),
+                    analyze(inputClass, ""));
+        }
+    }
+
+    @Test
+    public void testSummaryRecursion() {
+        // summary-limit:1 widens the arguments of the recursive calls
+        // to countDown() and fib() right after their first inputs
+        for (String limit : List.of("", ";summary-limit:1")) {
+            Map<String, Value> summary = analyze("Recursion", ";summary:true" + limit);
+            assertRefines(summary, analyze("Recursion", ""));
+            String main = "<Recursion: void main(java.lang.String[])>";
+            int ret = getReturnIndex(main);
+            Assert.assertEquals(Value.makeConstant(1), summary.get(key(main, ret, "a")));
+            Assert.assertEquals(Value.makeConstant(2), summary.get(key(main, ret, "b")));
+            Assert.assertEquals(Value.makeConstant(0), summary.get(key(main, ret, "c")));
+        }
+    }
+
+    /**
+     * Runs inter-constprop with extra options on given class, and returns
+     * the values in the IN facts of the statements of all reachable methods,
+     * keyed by {@link #key(String, int, String)}.
+     */
+    private static Map<String, Value> analyze(String inputClass, String cpOptions) {
+        Main.main(new String[]{
+                "-pp", "-cp", CLASS_PATH, "-m", inputClass,
+                "-a", InterConstantPropagation.ID + "=" + OPTIONS + cpOptions,
+                "-a", "cspta=cs:2-obj", "-a", "cg=algorithm:cspta"});
+        DataflowResult<Stmt, CPFact> result =
+                World.get().getResult(InterConstantPropagation.ID);
+        CallGraph<Invoke, JMethod> callGraph = World.get().getResult(CallGraphBuilder.ID);
+        Map<String, Value> values = new HashMap<>();
+        callGraph.reachableMethods().forEach(method -> {
+            for (Stmt stmt : method.getIR()) {
+                result.getInFact(stmt).forEach((var, value) -> values.put(
+                        key(method.toString(), stmt.getIndex(), var.getName()), value));
+            }
+        });
+        return values;
+    }
+
+    private static String key(String method, int stmtIndex, String var) {
+        return method + "/" + stmtIndex + "/" + var;
+    }
+
+    /**
+     * @return the index of the last statement of given method
+     * in the program analyzed by the last run.
+     */
+    private static int getReturnIndex(String method) {
+        IR ir = World.get().getClassHierarchy().getMethod(method).getIR();
+        return ir.getStmts().size() - 1;
+    }
+
+    /**
+     * Asserts that each value in {@code precise} is at least as precise
+     * as the value of the same variable in {@code imprecise}.
+     */
+    private static void assertRefines(Map<String, Value> precise,
+                                      Map<String, Value> imprecise) {
+        Set<String> keys = new HashSet<>(precise.keySet());
+        keys.addAll(imprecise.keySet());
+        for (String key : keys) {
+            Value p = precise.getOrDefault(key, Value.getUndef());
+            Value i = imprecise.getOrDefault(key, Value.getUndef());
+            Assert.assertEquals(key + ": " + p + " is less precise than " + i,
+                    i, ConstantPropagation.meetValue(p, i));
+        }
+    }
 }
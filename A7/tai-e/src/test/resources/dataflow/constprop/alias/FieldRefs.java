@@ -0,0 +1,16 @@
+class FieldRefs {
+
+    public static void main(String[] args) {
+        Derived d = new Derived();
+        d.f = 1;
+        Base b = d;
+        int x = b.f;
+    }
+}
+
+class Base {
+    int f;
+}
+
+class Derived extends Base {
+}
@@ -0,0 +1,27 @@
+class Recursion {
+
+    public static void main(String[] args) {
+        int a = identity(1);
+        int b = identity(2);
+        int c = countDown(1000);
+        int d = fib(20);
+    }
+
+    static int identity(int x) {
+        return x;
+    }
+
+    static int countDown(int n) {
+        if (n == 0) {
+            return 0;
+        }
+        return countDown(n - 1);
+    }
+
+    static int fib(int n) {
+        if (n <= 1) {
+            return n;
+        }
+        return fib(n - 1) + fib(n - 2);
+    }
+}
@@ -0,0 +1,19 @@
+class CopyConstant {
+
+    public static void main(String[] args) {
+        int a = 1;
+        int b = id(a);
+        int c = id(2);
+        int d = twice(c);
+        int e = a + b;
+    }
+
+    static int id(int x) {
+        return x;
+    }
+
+    static int twice(int y) {
+        int z = id(y);
+        return z;
+    }
+}